@@ -0,0 +1,60 @@
+package study.querydsl.benchmark;
+
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.querydsl.QuerydslApplication;
+
+/**
+ * 벤치마크마다 스프링 컨텍스트를 한번 띄우고 memberCount 만큼 데이터를 넣어둔다.
+ * H2 서버 없이 build/jmh 아래 파일 DB 를 사용하고, SQL 로그/count 캐시는 측정에 섞이지 않도록 끈다.
+ * 데이터 크기는 ./gradlew jmh -PmemberCount=10000,1000000 처럼 바꿀 수 있다.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkContext {
+
+  @Param({"10000"})
+  public int memberCount;
+
+  private ConfigurableApplicationContext context;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    //커맨드라인 인자는 application.yml 보다 우선한다.
+    context = new SpringApplicationBuilder(QuerydslApplication.class)
+        .web(WebApplicationType.NONE)
+        .run("--spring.profiles.active=bench",
+            "--spring.datasource.url=jdbc:h2:file:./build/jmh/querydsl",
+            "--spring.flyway.enabled=false", //매번 빈 스키마에서 시작하도록 엔티티로 다시 만든다 (인덱스 포함)
+            "--spring.jpa.hibernate.ddl-auto=create",
+            "--spring.jpa.properties.hibernate.format_sql=false",
+            "--spring.jpa.properties.hibernate.use_sql_comments=false",
+            "--decorator.datasource.p6spy.enable-logging=false",
+            "--logging.level.org.hibernate.SQL=warn",
+            "--querydsl.count-cache.ttl=0s",
+            "--querydsl.n-plus-one.mode=log");
+
+    BenchmarkData.insert(context.getBean(JdbcTemplate.class), memberCount);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  public <T> T getBean(Class<T> type) {
+    return context.getBean(type);
+  }
+
+  public EntityManager entityManager() {
+    return context.getBean(EntityManager.class);
+  }
+}
@@ -0,0 +1,46 @@
+package study.querydsl.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * 벤치마크용 데이터. 천만 건까지 넣어야 하므로 JPA 를 거치지 않고 JDBC batch 로 바로 넣는다.
+ * age 는 0~99, team 은 100개로 나눠서 age + teamName 조건이 대략 1/10000 을 고르도록 한다.
+ */
+final class BenchmarkData {
+
+  static final int TEAM_COUNT = 100;
+  private static final int BATCH_SIZE = 10_000;
+
+  private BenchmarkData() {
+  }
+
+  static void insert(JdbcTemplate jdbcTemplate, int memberCount) {
+    List<Object[]> teams = new ArrayList<>(TEAM_COUNT);
+    for (long i = 0; i < TEAM_COUNT; i++) {
+      teams.add(new Object[]{i + 1, teamName(i)});
+    }
+    jdbcTemplate.batchUpdate("insert into team (team_id, name) values (?, ?)", teams);
+
+    List<Object[]> members = new ArrayList<>(BATCH_SIZE);
+    for (long i = 0; i < memberCount; i++) {
+      members.add(new Object[]{i + 1, "member" + i, (int) (i % 100), (i / 100) % TEAM_COUNT + 1});
+      if (members.size() == BATCH_SIZE) {
+        insertMembers(jdbcTemplate, members);
+        members.clear();
+      }
+    }
+    if (!members.isEmpty()) {
+      insertMembers(jdbcTemplate, members);
+    }
+  }
+
+  static String teamName(long index) {
+    return "team" + index;
+  }
+
+  private static void insertMembers(JdbcTemplate jdbcTemplate, List<Object[]> members) {
+    jdbcTemplate.batchUpdate("insert into member (member_id, username, age, team_id) values (?, ?, ?, ?)", members);
+  }
+}
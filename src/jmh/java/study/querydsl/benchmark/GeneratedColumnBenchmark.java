@@ -0,0 +1,90 @@
+package study.querydsl.benchmark;
+
+import static study.querydsl.entity.QMember.member;
+
+import com.querydsl.core.types.dsl.CaseBuilder;
+import com.querydsl.core.types.dsl.StringExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import study.querydsl.entity.AgeBucket;
+
+/**
+ * QuerydslBasicTest 의 complexCase(나이 구간), concat(username_age) 을 조회마다 계산할 때와
+ * DB 가 계산해둔 컬럼(age_bucket, display_key)을 인덱스로 읽을 때 비교.
+ * ./gradlew jmh -Pincludes=GeneratedColumn -PmemberCount=1000000
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class GeneratedColumnBenchmark {
+
+  private static final int ROWS = 100;
+
+  @Param({"false", "true"})
+  public boolean generatedColumn;
+
+  private JPAQueryFactory queryFactory;
+  private long memberCount;
+  //H2 는 같은 SQL + 같은 파라미터면 이전 결과를 재사용하므로 파라미터를 바꿔가며 조회한다.
+  private long next;
+
+  @Setup(Level.Trial)
+  public void setUp(BenchmarkContext context) {
+    queryFactory = new JPAQueryFactory(context.entityManager());
+    memberCount = context.memberCount;
+  }
+
+  //21~30살 구간을 display key 순으로 한 페이지
+  @Benchmark
+  public List<String> bucketPage() {
+    long offset = (next++ * ROWS) % 10_000;
+    if (generatedColumn) {
+      return queryFactory
+          .select(member.displayKey)
+          .from(member)
+          .where(member.ageBucket.eq(AgeBucket.AGE_21_30))
+          .orderBy(member.displayKey.asc())
+          .offset(offset)
+          .limit(ROWS)
+          .fetch();
+    }
+    StringExpression displayKey = member.username.concat("_").concat(member.age.stringValue());
+    return queryFactory
+        .select(displayKey)
+        .from(member)
+        .where(new CaseBuilder()
+            .when(member.age.between(0, 20)).then("0~20살")
+            .when(member.age.between(21, 30)).then("21~30살")
+            .otherwise("기타")
+            .eq("21~30살"))
+        .orderBy(displayKey.asc())
+        .offset(offset)
+        .limit(ROWS)
+        .fetch();
+  }
+
+  //display key 한 건 찾기
+  @Benchmark
+  public List<Long> displayKeyLookup() {
+    long i = next++ % memberCount;
+    String key = "member" + i + "_" + i % 100; //BenchmarkData 의 username, age 규칙
+    StringExpression displayKey = generatedColumn
+        ? member.displayKey
+        : member.username.concat("_").concat(member.age.stringValue());
+    return queryFactory
+        .select(member.id)
+        .from(member)
+        .where(displayKey.eq(key))
+        .fetch();
+  }
+}
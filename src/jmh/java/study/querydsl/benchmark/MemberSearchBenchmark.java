@@ -0,0 +1,65 @@
+package study.querydsl.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+
+/**
+ * 검색 조건 처리 방식(BooleanBuilder / JPQL 템플릿)과 페이징 count 방식(simple / complex) 비교
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MemberSearchBenchmark {
+
+  private MemberJpaRepository memberJpaRepository;
+  private MemberRepository memberRepository;
+  private MemberSearchCondition condition;
+  private Pageable pageable;
+
+  @Setup(Level.Trial)
+  public void setUp(BenchmarkContext context) {
+    memberJpaRepository = context.getBean(MemberJpaRepository.class);
+    memberRepository = context.getBean(MemberRepository.class);
+
+    condition = new MemberSearchCondition();
+    condition.setTeamName(BenchmarkData.teamName(3));
+    condition.setAgeGoe(30);
+    condition.setAgeLoe(39);
+    pageable = PageRequest.of(0, 20);
+  }
+
+  @Benchmark
+  public List<MemberTeamDto> search() {
+    return memberJpaRepository.search(condition);
+  }
+
+  @Benchmark
+  public List<MemberTeamDto> searchByBuilder() {
+    return memberJpaRepository.searchByBuilder(condition);
+  }
+
+  @Benchmark
+  public Page<MemberTeamDto> searchPageSimple() {
+    return memberRepository.searchPageSimple(condition, pageable);
+  }
+
+  @Benchmark
+  public Page<MemberTeamDto> searchPageComplex() {
+    return memberRepository.searchPageComplex(condition, pageable);
+  }
+}
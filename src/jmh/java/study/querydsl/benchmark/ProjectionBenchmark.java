@@ -0,0 +1,72 @@
+package study.querydsl.benchmark;
+
+import static study.querydsl.entity.QMember.member;
+
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.QMemberDto;
+
+/**
+ * DTO 프로젝션 방식별 비교. 같은 ROWS 건을 각 방식으로 MemberDto 에 담는다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ProjectionBenchmark {
+
+  private static final int ROWS = 1000;
+
+  private JPAQueryFactory queryFactory;
+
+  @Setup(Level.Trial)
+  public void setUp(BenchmarkContext context) {
+    queryFactory = new JPAQueryFactory(context.entityManager());
+  }
+
+  @Benchmark
+  public List<MemberDto> bean() { //setter
+    return queryFactory
+        .select(Projections.bean(MemberDto.class, member.username, member.age))
+        .from(member)
+        .limit(ROWS)
+        .fetch();
+  }
+
+  @Benchmark
+  public List<MemberDto> fields() { //필드 직접 주입
+    return queryFactory
+        .select(Projections.fields(MemberDto.class, member.username, member.age))
+        .from(member)
+        .limit(ROWS)
+        .fetch();
+  }
+
+  @Benchmark
+  public List<MemberDto> constructor() { //런타임에 생성자 탐색
+    return queryFactory
+        .select(Projections.constructor(MemberDto.class, member.username, member.age))
+        .from(member)
+        .limit(ROWS)
+        .fetch();
+  }
+
+  @Benchmark
+  public List<MemberDto> queryProjection() { //컴파일 시점에 생성된 QMemberDto
+    return queryFactory
+        .select(new QMemberDto(member.username, member.age))
+        .from(member)
+        .limit(ROWS)
+        .fetch();
+  }
+}
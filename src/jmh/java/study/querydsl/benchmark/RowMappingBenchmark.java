@@ -0,0 +1,60 @@
+package study.querydsl.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberSearchJdbcRepository;
+
+/**
+ * 같은 검색(전체의 10%)을 Hibernate DTO 프로젝션 / JDBC 직접 매핑 / flyweight 로 읽을 때의 비교.
+ * gc.alloc.rate.norm(B/op) 을 결과 건수(memberCount / 10)로 나누면 row 당 할당량이 나온다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RowMappingBenchmark {
+
+  private MemberJpaRepository memberJpaRepository;
+  private MemberSearchJdbcRepository memberSearchJdbcRepository;
+  private MemberSearchCondition condition;
+
+  @Setup(Level.Trial)
+  public void setUp(BenchmarkContext context) {
+    memberJpaRepository = context.getBean(MemberJpaRepository.class);
+    memberSearchJdbcRepository = context.getBean(MemberSearchJdbcRepository.class);
+
+    condition = new MemberSearchCondition();
+    condition.setAgeLoe(9);
+  }
+
+  @Benchmark
+  public List<MemberTeamDto> hibernateProjection() {
+    return memberJpaRepository.search(condition);
+  }
+
+  @Benchmark
+  public List<MemberTeamDto> jdbcMapping() {
+    return memberSearchJdbcRepository.search(condition);
+  }
+
+  @Benchmark
+  public void jdbcFlyweight(Blackhole blackhole) {
+    memberSearchJdbcRepository.forEach(condition, row -> {
+      blackhole.consume(row.getMemberId());
+      blackhole.consume(row.getUsername());
+      blackhole.consume(row.getAge());
+      blackhole.consume(row.getTeamName());
+    });
+  }
+}
@@ -0,0 +1,69 @@
+package study.querydsl.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberJpaRepository;
+
+/**
+ * V2__member_search_indexes 전/후 검색 시간 비교. indexes=false 면 인덱스를 지우고 full scan 으로 측정한다.
+ * 인덱스 효과는 데이터가 많아야 보이므로 ./gradlew jmh -Pincludes=SearchIndex -PmemberCount=1000000 으로 돌린다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SearchIndexBenchmark {
+
+  @Param({"false", "true"})
+  public boolean indexes;
+
+  private static final int CONDITIONS = 1024;
+
+  private MemberJpaRepository memberJpaRepository;
+  //H2 는 같은 SQL + 같은 파라미터면 테이블이 바뀌지 않는 한 이전 결과를 재사용하므로 값을 돌려가며 조회한다.
+  private final MemberSearchCondition[] teamAndAge = new MemberSearchCondition[CONDITIONS];
+  private final MemberSearchCondition[] username = new MemberSearchCondition[CONDITIONS];
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp(BenchmarkContext context) {
+    JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+    if (!indexes) {
+      jdbcTemplate.execute("drop index if exists idx_member_team_age");
+      jdbcTemplate.execute("drop index if exists idx_member_username");
+    }
+    jdbcTemplate.execute("analyze"); //H2 가 선택도를 알도록 통계 갱신
+    memberJpaRepository = context.getBean(MemberJpaRepository.class);
+
+    for (int i = 0; i < CONDITIONS; i++) {
+      teamAndAge[i] = new MemberSearchCondition();
+      teamAndAge[i].setTeamName(BenchmarkData.teamName(i % BenchmarkData.TEAM_COUNT));
+      teamAndAge[i].setAgeGoe(i % 90);
+      teamAndAge[i].setAgeLoe(i % 90 + 9);
+
+      username[i] = new MemberSearchCondition();
+      username[i].setUsername("member" + (long) i * context.memberCount / CONDITIONS);
+    }
+  }
+
+  @Benchmark
+  public List<MemberTeamDto> searchByTeamAndAge() {
+    return memberJpaRepository.search(teamAndAge[next++ & (CONDITIONS - 1)]);
+  }
+
+  @Benchmark
+  public List<MemberTeamDto> searchByUsername() {
+    return memberJpaRepository.search(username[next++ & (CONDITIONS - 1)]);
+  }
+}
@@ -0,0 +1,99 @@
+package study.querydsl.benchmark;
+
+import static com.querydsl.jpa.JPAExpressions.select;
+import static study.querydsl.entity.QMember.member;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import study.querydsl.entity.QMember;
+import study.querydsl.repository.support.SubQueryRewriter;
+
+/**
+ * QuerydslBasicTest 의 서브쿼리 패턴(max, avg, in, select 절 avg)을 그대로 실행할 때와 SubQueryRewriter 로 바꿨을 때 비교.
+ * 바깥 쿼리는 member_id 범위(WINDOW 건)만 보게 해서 서브쿼리(member 전체 스캔) 비용이 드러나도록 한다.
+ * ./gradlew jmh -Pincludes=SubQuery -PmemberCount=1000000
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SubQueryBenchmark {
+
+  private static final QMember memberSub = new QMember("memberSub");
+  private static final int WINDOW = 10_000;
+
+  @Param({"false", "true"})
+  public boolean rewrite;
+
+  private JPAQueryFactory queryFactory;
+  private SubQueryRewriter subQueryRewriter;
+  private long memberCount;
+  //H2 는 같은 SQL + 같은 파라미터면 이전 결과를 재사용하므로 범위를 옮겨가며 조회한다.
+  private long next;
+
+  @Setup(Level.Trial)
+  public void setUp(BenchmarkContext context) {
+    queryFactory = new JPAQueryFactory(context.entityManager());
+    subQueryRewriter = new SubQueryRewriter(context.entityManager(), Duration.ofSeconds(5), 1000, 1000);
+    memberCount = context.memberCount;
+  }
+
+  @Benchmark
+  public List<Long> maxAge() {
+    return run(queryFactory
+        .select(member.id)
+        .from(member)
+        .where(inWindow(), member.age.eq(select(memberSub.age.max()).from(memberSub))))
+        .fetch();
+  }
+
+  @Benchmark
+  public Long atLeastAverageAge() {
+    return run(queryFactory
+        .select(member.count())
+        .from(member)
+        .where(inWindow(), member.age.goe(select(memberSub.age.avg()).from(memberSub))))
+        .fetchOne();
+  }
+
+  @Benchmark
+  public Long inSubQuery() {
+    return run(queryFactory
+        .select(member.count())
+        .from(member)
+        .where(inWindow(), member.age.in(select(memberSub.age).from(memberSub).where(memberSub.age.gt(90)))))
+        .fetchOne();
+  }
+
+  @Benchmark
+  public List<Tuple> selectSubQuery() {
+    return run(queryFactory
+        .select(member.username, select(memberSub.age.avg()).from(memberSub))
+        .from(member)
+        .where(inWindow()))
+        .limit(100)
+        .fetch();
+  }
+
+  private Predicate inWindow() {
+    long from = (next++ * WINDOW) % Math.max(1, memberCount - WINDOW) + 1;
+    return member.id.between(from, from + WINDOW - 1);
+  }
+
+  private <T> JPAQuery<T> run(JPAQuery<T> query) {
+    return rewrite ? subQueryRewriter.rewrite(query) : query;
+  }
+}
@@ -0,0 +1,122 @@
+package study.querydsl.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * DB 를 사용하는 조회 API 의 동시 실행 수를 커넥션 풀 크기로 제한한다.
+ *
+ * 가상 스레드처럼 요청 스레드 수에 제한이 없으면 요청이 모두 Hikari 커넥션 대기로 몰려 connectionTimeout 으로 실패하므로,
+ * 풀 앞에서 세마포어로 먼저 줄을 세운다. timeout 안에 자리가 나지 않으면 503 으로 바로 돌려보낸다.
+ * 비동기 요청(/v1/members/async, /v3/members/summary 등)은 요청 스레드가 먼저 반납되므로 비동기 처리가 끝날 때 자리를 돌려준다.
+ *
+ * querydsl.admission.wait : 세마포어 대기 시간 (outcome=acquired|rejected)
+ * querydsl.admission.in-flight : 현재 실행 중인 요청 수
+ */
+@Component
+public class AdmissionLimitFilter extends OncePerRequestFilter {
+
+  private final Set<String> paths;
+  private final Semaphore permits;
+  private final long timeoutNanos;
+  private final Timer acquired;
+  private final Timer rejected;
+
+  public AdmissionLimitFilter(MeterRegistry meterRegistry,
+      @Value("${querydsl.admission.paths:/v1/members,/v2/members,/v3/members,/v4/members,"
+          + "/v1/members/async,/v2/members/async,/v3/members/async,/v3/members/summary}") Set<String> paths,
+      @Value("${querydsl.admission.max-concurrent:${spring.datasource.hikari.maximum-pool-size:10}}") int maxConcurrent,
+      @Value("${querydsl.admission.timeout:1s}") Duration timeout) {
+    this.paths = paths;
+    this.permits = new Semaphore(maxConcurrent, true);
+    this.timeoutNanos = timeout.toNanos();
+    this.acquired = Timer.builder("querydsl.admission.wait").tag("outcome", "acquired").register(meterRegistry);
+    this.rejected = Timer.builder("querydsl.admission.wait").tag("outcome", "rejected").register(meterRegistry);
+    Gauge.builder("querydsl.admission.in-flight", permits, p -> maxConcurrent - p.availablePermits())
+        .register(meterRegistry);
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !paths.contains(request.getRequestURI());
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+      FilterChain filterChain) throws ServletException, IOException {
+    long start = System.nanoTime();
+    boolean admitted;
+    try {
+      admitted = permits.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      admitted = false;
+    }
+    (admitted ? acquired : rejected).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+    if (!admitted) {
+      response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+      response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "too many concurrent requests");
+      return;
+    }
+    boolean async = false;
+    try {
+      filterChain.doFilter(request, response);
+      async = request.isAsyncStarted();
+    } finally {
+      if (async) {
+        request.getAsyncContext().addListener(new ReleaseOnComplete());
+      } else {
+        permits.release();
+      }
+    }
+  }
+
+  private class ReleaseOnComplete implements AsyncListener {
+
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+      release();
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+      release();
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+      release();
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+    }
+
+    private void release() {
+      if (released.compareAndSet(false, true)) { //timeout/error 뒤에 complete 가 또 온다
+        permits.release();
+      }
+    }
+  }
+}
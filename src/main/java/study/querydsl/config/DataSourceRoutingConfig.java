@@ -0,0 +1,64 @@
+package study.querydsl.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * primary / replica 두 개의 커넥션 풀을 만들고 ReplicationDataSource 로 묶는다.
+ * querydsl.datasource.routing.enabled=true 일 때만 등록되고, 아니면 스프링 부트 기본 DataSource 하나를 그대로 쓴다.
+ *
+ * primary 는 spring.datasource.*, replica 는 querydsl.datasource.replica.* 설정을 사용한다.
+ * p6spy 는 커넥션을 받자마자 메타데이터를 조회해서 지연 커넥션을 깨우므로 각 풀에만 붙이고
+ * routingDataSource 는 decorator.datasource.exclude-beans 로 뺀다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "querydsl.datasource.routing.enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+  @Bean
+  public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+    HikariDataSource primary = properties.initializeDataSourceBuilder()
+        .type(HikariDataSource.class)
+        .build();
+    primary.setPoolName("primary");
+    return primary;
+  }
+
+  @Bean
+  public HikariDataSource replicaDataSource(DataSourceProperties properties,
+      @Value("${querydsl.datasource.replica.url}") String url,
+      @Value("${querydsl.datasource.replica.username:${spring.datasource.username:}}") String username,
+      @Value("${querydsl.datasource.replica.password:${spring.datasource.password:}}") String password,
+      @Value("${querydsl.datasource.replica.maximum-pool-size:10}") int maximumPoolSize) {
+    HikariDataSource replica = DataSourceBuilder.create()
+        .type(HikariDataSource.class)
+        .driverClassName(properties.determineDriverClassName())
+        .url(url)
+        .username(username)
+        .password(password)
+        .build();
+    replica.setPoolName("replica");
+    replica.setMaximumPoolSize(maximumPoolSize);
+    return replica;
+  }
+
+  @Bean
+  @Primary
+  public DataSource routingDataSource(@Qualifier("primaryDataSource") DataSource primary,
+      @Qualifier("replicaDataSource") DataSource replica) {
+    return new ReplicationDataSource(primary, replica);
+  }
+
+  @Bean
+  public ReadYourWritesFilter readYourWritesFilter() {
+    return new ReadYourWritesFilter();
+  }
+}
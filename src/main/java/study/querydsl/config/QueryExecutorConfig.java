@@ -0,0 +1,77 @@
+package study.querydsl.config;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.TaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class QueryExecutorConfig {
+
+  /**
+   * Executor 빈을 직접 등록하면 스프링 부트의 기본 applicationTaskExecutor 가 만들어지지 않으므로 똑같이 다시 등록해준다.
+   * (MVC 비동기 처리, @Async 에서 사용)
+   */
+  @Lazy
+  @Primary
+  @Bean(name = {"applicationTaskExecutor", "taskExecutor"})
+  public ThreadPoolTaskExecutor applicationTaskExecutor(TaskExecutorBuilder builder) {
+    return builder.build();
+  }
+
+  /**
+   * 페이징 count 쿼리를 content 쿼리와 동시에 돌리기 위한 전용 스레드풀.
+   * 큐가 가득 차면 호출한 스레드에서 그냥 실행한다.
+   */
+  @Bean
+  public ThreadPoolTaskExecutor countQueryExecutor(
+      @Value("${querydsl.paging.count-executor.pool-size:4}") int poolSize,
+      @Value("${querydsl.paging.count-executor.queue-capacity:100}") int queueCapacity) {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(poolSize);
+    executor.setMaxPoolSize(poolSize);
+    executor.setQueueCapacity(queueCapacity);
+    executor.setThreadNamePrefix("count-query-");
+    executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+    return executor;
+  }
+
+  /**
+   * 샤드 검색(MemberShardSearch)에서 샤드마다 쿼리를 동시에 보내기 위한 스레드풀.
+   * 샤드 수만큼은 바로 실행되도록 pool-size 를 샤드 수 이상으로 잡는다.
+   */
+  @Bean
+  public ThreadPoolTaskExecutor shardQueryExecutor(
+      @Value("${querydsl.sharding.executor.pool-size:8}") int poolSize,
+      @Value("${querydsl.sharding.executor.queue-capacity:100}") int queueCapacity) {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(poolSize);
+    executor.setMaxPoolSize(poolSize);
+    executor.setQueueCapacity(queueCapacity);
+    executor.setThreadNamePrefix("shard-query-");
+    executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+    return executor;
+  }
+
+  /**
+   * MemberRepositoryCustom 의 *Async 조회(AsyncQueries)를 실행하는 스레드풀.
+   * 작업마다 커넥션을 하나씩 쓰므로 pool-size 는 커넥션 풀 크기보다 작게 잡는다.
+   * 큐가 가득 차면 호출한 스레드에서 그냥 실행한다. (요청 스레드가 기다리게 되므로 자연스럽게 유입이 줄어든다)
+   */
+  @Bean
+  public ThreadPoolTaskExecutor asyncQueryExecutor(
+      @Value("${querydsl.async.executor.pool-size:8}") int poolSize,
+      @Value("${querydsl.async.executor.queue-capacity:200}") int queueCapacity) {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(poolSize);
+    executor.setMaxPoolSize(poolSize);
+    executor.setQueueCapacity(queueCapacity);
+    executor.setThreadNamePrefix("async-query-");
+    executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+    return executor;
+  }
+}
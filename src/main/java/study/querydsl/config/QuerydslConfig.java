@@ -0,0 +1,24 @@
+package study.querydsl.config;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.querydsl.monitoring.InstrumentedJPAQueryFactory;
+import study.querydsl.monitoring.QueryMetrics;
+
+/**
+ * repository 들이 같이 쓰는 JPAQueryFactory.
+ * EntityManager 는 트랜잭션마다 실제 EntityManager 로 연결되는 프록시이므로 싱글톤으로 공유해도 된다.
+ * querydsl.query-metrics.enabled=false 면 계측하지 않는 기본 JPAQueryFactory 를 쓴다.
+ */
+@Configuration
+public class QuerydslConfig {
+
+  @Bean
+  public JPAQueryFactory jpaQueryFactory(EntityManager em, QueryMetrics queryMetrics,
+      @Value("${querydsl.query-metrics.enabled:true}") boolean metricsEnabled) {
+    return metricsEnabled ? new InstrumentedJPAQueryFactory(em, queryMetrics) : new JPAQueryFactory(em);
+  }
+}
@@ -0,0 +1,50 @@
+package study.querydsl.config;
+
+import java.util.function.Supplier;
+
+/**
+ * 현재 스레드(요청)에서 읽기 전용 조회도 primary 로 보내도록 하는 스위치.
+ * 쓰고 나서 바로 다시 읽어야 하는 요청에서 replica 복제 지연 때문에 이전 값이 보이는 것을 막는다.
+ * HTTP 요청은 X-Read-Your-Writes: true 헤더로 켤 수 있다. (ReadYourWritesFilter)
+ *
+ * <pre>
+ * try (ReadYourWrites.Scope scope = ReadYourWrites.open()) {
+ *   ...
+ * }
+ * </pre>
+ */
+public final class ReadYourWrites {
+
+  private static final ThreadLocal<Boolean> ENABLED = ThreadLocal.withInitial(() -> false);
+
+  private ReadYourWrites() {
+  }
+
+  public static boolean isEnabled() {
+    return ENABLED.get();
+  }
+
+  public static Scope open() {
+    return new Scope();
+  }
+
+  public static <T> T call(Supplier<T> action) {
+    try (Scope scope = open()) {
+      return action.get();
+    }
+  }
+
+  public static final class Scope implements AutoCloseable {
+
+    private final boolean previous = ENABLED.get();
+
+    private Scope() {
+      ENABLED.set(true);
+    }
+
+    @Override
+    public void close() {
+      ENABLED.set(previous);
+    }
+  }
+}
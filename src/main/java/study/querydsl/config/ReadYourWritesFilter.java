@@ -0,0 +1,29 @@
+package study.querydsl.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * X-Read-Your-Writes: true 헤더가 있는 요청은 처음부터 끝까지 primary 에서 읽는다.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+  public static final String HEADER = "X-Read-Your-Writes";
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+      FilterChain filterChain) throws ServletException, IOException {
+    if (!Boolean.parseBoolean(request.getHeader(HEADER))) {
+      filterChain.doFilter(request, response);
+      return;
+    }
+
+    try (ReadYourWrites.Scope scope = ReadYourWrites.open()) {
+      filterChain.doFilter(request, response);
+    }
+  }
+}
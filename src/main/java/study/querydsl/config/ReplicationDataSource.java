@@ -0,0 +1,41 @@
+package study.querydsl.config;
+
+import java.util.Map;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 읽기 전용 트랜잭션(@Transactional(readOnly = true))은 replica 로, 나머지는 primary 로 보낸다.
+ *
+ * 트랜잭션 매니저는 readOnly 여부를 트랜잭션 동기화에 등록하기 전에 커넥션을 가져오므로,
+ * LazyConnectionDataSourceProxy 로 감싸서 실제 커넥션은 첫 쿼리 때 고르도록 한다.
+ * ReadYourWrites 가 켜져 있으면 읽기 전용이어도 primary 에서 읽는다. (방금 쓴 값을 복제 지연 없이 보기 위해)
+ */
+public class ReplicationDataSource extends LazyConnectionDataSourceProxy {
+
+  enum Target {
+    PRIMARY, REPLICA
+  }
+
+  public ReplicationDataSource(DataSource primary, DataSource replica) {
+    AbstractRoutingDataSource routing = new AbstractRoutingDataSource() {
+      @Override
+      protected Object determineCurrentLookupKey() {
+        return currentTarget();
+      }
+    };
+    routing.setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+    routing.setDefaultTargetDataSource(primary);
+    routing.afterPropertiesSet();
+    setTargetDataSource(routing);
+    afterPropertiesSet();
+  }
+
+  static Target currentTarget() {
+    boolean readOnly = TransactionSynchronizationManager.isActualTransactionActive()
+        && TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    return readOnly && !ReadYourWrites.isEnabled() ? Target.REPLICA : Target.PRIMARY;
+  }
+}
@@ -0,0 +1,37 @@
+package study.querydsl.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Tomcat 요청을 가상 스레드(Java 21)에서 처리한다. querydsl.virtual-threads.enabled=true 일 때만 등록된다.
+ *
+ * 소스는 Java 17 로 컴파일하므로 Executors.newVirtualThreadPerTaskExecutor() 는 리플렉션으로 부른다.
+ * Java 21 로 실행해야 한다. (./gradlew bootRun -Pjava21 --args='--querydsl.virtual-threads.enabled=true')
+ * 스레드 수 제한이 없어지므로 DB 동시 접근은 AdmissionLimitFilter 로 커넥션 풀 크기만큼 제한한다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "querydsl.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+  @Bean
+  public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+    ExecutorService executor = newVirtualThreadPerTaskExecutor();
+    return protocolHandler -> protocolHandler.setExecutor(executor);
+  }
+
+  static ExecutorService newVirtualThreadPerTaskExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (NoSuchMethodException e) {
+      throw new IllegalStateException("가상 스레드는 Java 21 이상에서만 사용할 수 있습니다. 현재: "
+          + Runtime.version(), e);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("가상 스레드 Executor 생성 실패", e);
+    }
+  }
+}
@@ -0,0 +1,108 @@
+package study.querydsl.controller;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.repository.MemberSearchQueryTemplates;
+
+/**
+ * 2차 캐시 / 쿼리 캐시 / 쿼리 플랜 캐시 hit ratio 확인용.
+ * hibernate.generate_statistics: true 일 때만 값이 쌓인다.
+ */
+@RestController
+public class CacheStatsController {
+
+  private static final String[] ENTITY_REGIONS = {"team", "team.members", "member"};
+
+  private static final String[] PLAN_CACHE_SETTINGS = {
+      "hibernate.query.plan_cache_max_size", "hibernate.query.in_clause_parameter_padding"};
+  private static final int MAX_QUERIES = 50;
+
+  private final EntityManagerFactory emf;
+  private final Statistics statistics;
+  private final MemberSearchQueryTemplates searchQueryTemplates;
+
+  public CacheStatsController(EntityManagerFactory emf, MemberSearchQueryTemplates searchQueryTemplates) {
+    this.emf = emf;
+    this.statistics = emf.unwrap(SessionFactory.class).getStatistics();
+    this.searchQueryTemplates = searchQueryTemplates;
+  }
+
+  @GetMapping("/admin/cache-stats")
+  public Map<String, Object> cacheStats(){
+    Map<String, Object> result = new LinkedHashMap<>();
+    result.put("secondLevelCache", stats(statistics.getSecondLevelCacheHitCount(),
+        statistics.getSecondLevelCacheMissCount(), statistics.getSecondLevelCachePutCount()));
+    result.put("queryCache", stats(statistics.getQueryCacheHitCount(),
+        statistics.getQueryCacheMissCount(), statistics.getQueryCachePutCount()));
+
+    Map<String, Object> regions = new LinkedHashMap<>();
+    for (String region : ENTITY_REGIONS) {
+      CacheRegionStatistics regionStatistics = statistics.getDomainDataRegionStatistics(region);
+      regions.put(region, stats(regionStatistics.getHitCount(),
+          regionStatistics.getMissCount(), regionStatistics.getPutCount()));
+    }
+    result.put("regions", regions);
+    return result;
+  }
+
+  /**
+   * JPQL 플랜 캐시 hit ratio 와 JPQL 문자열별 실행/플랜 캐시 통계.
+   * 같은 조건 조합인데 JPQL 이 여러 개로 보이면 값이 문자열에 섞여 들어가고 있다는 뜻이다.
+   */
+  @GetMapping("/admin/query-plan-stats")
+  public Map<String, Object> queryPlanStats(){
+    Map<String, Object> result = new LinkedHashMap<>();
+
+    Map<String, Object> settings = new LinkedHashMap<>();
+    for (String setting : PLAN_CACHE_SETTINGS) {
+      settings.put(setting, emf.getProperties().get(setting));
+    }
+    result.put("settings", settings);
+    result.put("planCache", stats(statistics.getQueryPlanCacheHitCount(), statistics.getQueryPlanCacheMissCount()));
+    result.put("memberSearchTemplates", stats(searchQueryTemplates.getHitCount(), searchQueryTemplates.getMissCount()));
+
+    String[] queries = statistics.getQueries();
+    result.put("distinctQueries", queries.length);
+    List<Map<String, Object>> top = Arrays.stream(queries)
+        .map(query -> queryStats(query, statistics.getQueryStatistics(query)))
+        .sorted(Comparator.comparingLong((Map<String, Object> stats) -> (Long) stats.get("executions")).reversed())
+        .limit(MAX_QUERIES)
+        .toList();
+    result.put("queries", top);
+    return result;
+  }
+
+  private static Map<String, Object> queryStats(String query, QueryStatistics queryStatistics) {
+    Map<String, Object> stats = new LinkedHashMap<>();
+    stats.put("query", query);
+    stats.put("executions", queryStatistics.getExecutionCount());
+    stats.put("avgMs", queryStatistics.getExecutionAvgTime());
+    stats.put("planCacheHit", queryStatistics.getPlanCacheHitCount());
+    stats.put("planCacheMiss", queryStatistics.getPlanCacheMissCount());
+    return stats;
+  }
+
+  private static Map<String, Object> stats(long hit, long miss, long put) {
+    Map<String, Object> stats = stats(hit, miss);
+    stats.put("put", put);
+    return stats;
+  }
+
+  private static Map<String, Object> stats(long hit, long miss) {
+    Map<String, Object> stats = new LinkedHashMap<>();
+    stats.put("hit", hit);
+    stats.put("miss", miss);
+    stats.put("hitRatio", hit + miss == 0 ? 0.0 : (double) hit / (hit + miss));
+    return stats;
+  }
+}
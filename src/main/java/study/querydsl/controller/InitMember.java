@@ -2,14 +2,16 @@ package study.querydsl.controller;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.PersistenceContext;
+import java.util.List;
+import java.util.stream.LongStream;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
+import study.querydsl.repository.BulkInsertRepository;
 
 @Profile("local")
 @Component
@@ -24,21 +26,33 @@ public class InitMember {
   }
 
   @Component
+  @RequiredArgsConstructor
   static class InitMemberService{
-    @PersistenceContext
-    private EntityManager em;
+    private final BulkInsertRepository bulkInsertRepository;
+    private final EntityManager em;
+
+    @Value("${querydsl.init.member-count:100}")
+    private long memberCount;
 
     @Transactional
     public void init(){
+      //스키마를 마이그레이션으로 관리하므로 재시작해도 데이터가 남아있다. (팀 이름은 unique)
+      Long teams = em.createQuery("select count(t) from Team t", Long.class).getSingleResult();
+      if (teams > 0) {
+        return;
+      }
       Team teamA = new Team("teamA");
       Team teamB = new Team("teamB");
-      em.persist(teamA);
-      em.persist(teamB);
-
-      for(int i=0; i<100; i++){
-        Team selectedTeam = i%2 == 0 ? teamA : teamB; //i를 2로나눈 나머지가 0이면 teamA 아니면 teamB 소속
-        em.persist(new Member("member"+i, i, selectedTeam));
-      }
+      bulkInsertRepository.saveAll(List.of(teamA, teamB));
+
+      //member를 List로 모으지 않고 만들면서 batch insert. teamA/teamB 의 members 에 쌓이지 않도록 FK 쪽만 채운다
+      Iterable<Member> members = () -> LongStream.range(0, memberCount)
+          .mapToObj(i -> {
+            Team selectedTeam = i%2 == 0 ? teamA : teamB; //i를 2로나눈 나머지가 0이면 teamA 아니면 teamB 소속
+            return Member.ofTeamOnly("member"+i, (int) i, selectedTeam);
+          })
+          .iterator();
+      bulkInsertRepository.saveAll(members);
     }
 
   }
@@ -1,14 +1,32 @@
 package study.querydsl.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import study.querydsl.dto.CursorSlice;
+import study.querydsl.dto.MemberCursor;
 import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberSearchSummaryDto;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberPageCache;
 import study.querydsl.repository.MemberRepository;
 
 @RestController
@@ -17,18 +35,97 @@ public class MemberController {
 
   private final MemberJpaRepository memberJpaRepository;
   private final MemberRepository memberRepository;
+  private final MemberPageCache pageCache;
+  private final ObjectMapper objectMapper;
+
+  @Value("${spring.data.web.pageable.max-page-size:2000}")
+  private int maxPageSize;
 
   @GetMapping("/v1/members")
   public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition){
     return memberJpaRepository.search(condition);
   }
+  //결과를 모아서 내려주지 않고 조회되는 대로 한줄씩(NDJSON) 내려준다.
+  @GetMapping("/v1/members/stream")
+  public ResponseEntity<StreamingResponseBody> searchMemberV1Stream(MemberSearchCondition condition){
+    StreamingResponseBody body = out ->
+        memberJpaRepository.searchForEach(condition, dto -> writeLine(out, dto));
+    return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_NDJSON)
+        .body(body);
+  }
+  //같은 조건 + 페이지면 캐시된 페이지를 내려주고, If-None-Match 가 맞으면 DB 를 보지 않고 304 (MemberPageCache)
   @GetMapping("/v2/members")
-  public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable){
-    return memberRepository.searchPageSimple(condition, pageable);
+  public ResponseEntity<Page<MemberTeamDto>> searchMemberV2(MemberSearchCondition condition, Pageable pageable,
+      WebRequest request){
+    return cachedPage("v2", condition, pageable, request,
+        () -> memberRepository.searchPageSimple(condition, pageable));
   }
   @GetMapping("/v3/members")
-  public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable){
-    return memberRepository.searchPageComplex(condition, pageable);
+  public ResponseEntity<Page<MemberTeamDto>> searchMemberV3(MemberSearchCondition condition, Pageable pageable,
+      WebRequest request){
+    return cachedPage("v3", condition, pageable, request,
+        () -> memberRepository.searchPageComplex(condition, pageable));
+  }
+  //잘못된 커서나 1보다 작은 size 는 400. size 는 /v2, /v3 의 Pageable 과 같은 최대값으로 자른다
+  @GetMapping("/v4/members")
+  public CursorSlice<MemberTeamDto> searchMemberV4(MemberSearchCondition condition,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "20") int size){
+    if (size < 1) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size must be greater than zero: " + size);
+    }
+    MemberCursor decoded;
+    try {
+      decoded = MemberCursor.decode(cursor);
+    } catch (IllegalArgumentException e) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+    }
+    return memberRepository.searchSlice(condition, decoded, Math.min(size, maxPageSize));
+  }
+
+
+  //비동기 버전. 조회는 asyncQueryExecutor 에서 실행되고, 기다리는 동안 요청 스레드는 반납된다. (페이지 캐시는 거치지 않음)
+  @GetMapping("/v1/members/async")
+  public CompletableFuture<List<MemberTeamDto>> searchMemberV1Async(MemberSearchCondition condition){
+    return memberRepository.searchAsync(condition);
+  }
+  @GetMapping("/v2/members/async")
+  public CompletableFuture<Page<MemberTeamDto>> searchMemberV2Async(MemberSearchCondition condition,
+      Pageable pageable){
+    return memberRepository.searchPageSimpleAsync(condition, pageable);
+  }
+  @GetMapping("/v3/members/async")
+  public CompletableFuture<Page<MemberTeamDto>> searchMemberV3Async(MemberSearchCondition condition,
+      Pageable pageable){
+    return memberRepository.searchPageComplexAsync(condition, pageable);
+  }
+  //content, count, 팀별 통계 쿼리를 동시에 실행한다.
+  @GetMapping("/v3/members/summary")
+  public CompletableFuture<MemberSearchSummaryDto> searchMemberV3Summary(MemberSearchCondition condition,
+      Pageable pageable){
+    return memberRepository.searchPageComplexAsync(condition, pageable)
+        .thenCombine(memberRepository.searchTeamSummaryAsync(condition), MemberSearchSummaryDto::new);
   }
 
+  private ResponseEntity<Page<MemberTeamDto>> cachedPage(String name, MemberSearchCondition condition,
+      Pageable pageable, WebRequest request, Supplier<Page<MemberTeamDto>> loader) {
+    MemberPageCache.Key key = pageCache.key(name, condition, pageable);
+    String etag = pageCache.etag(key);
+    if (request.checkNotModified(etag)) {
+      return null; //304 는 스프링이 만들어준다
+    }
+    return ResponseEntity.ok()
+        .eTag(etag)
+        .body(pageCache.get(key, loader));
+  }
+
+  private void writeLine(OutputStream out, MemberTeamDto dto) {
+    try {
+      out.write(objectMapper.writeValueAsBytes(dto));
+      out.write('\n');
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
 }
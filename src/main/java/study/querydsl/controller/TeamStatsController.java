@@ -0,0 +1,32 @@
+package study.querydsl.controller;
+
+import java.util.List;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.dto.TeamStatsDto;
+import study.querydsl.repository.stats.TeamStatsRepository;
+
+/**
+ * 팀별 member.age 통계 (count, sum, avg, min, max). group by 없이 미리 집계해둔 값을 돌려준다.
+ */
+@RestController
+public class TeamStatsController {
+
+  private final TeamStatsRepository teamStatsRepository;
+
+  public TeamStatsController(TeamStatsRepository teamStatsRepository) {
+    this.teamStatsRepository = teamStatsRepository;
+  }
+
+  @GetMapping("/v1/teams/stats")
+  public List<TeamStatsDto> teamStats(){
+    return teamStatsRepository.findAll();
+  }
+
+  @GetMapping("/v1/teams/stats/{teamName}")
+  public ResponseEntity<TeamStatsDto> teamStats(@PathVariable String teamName){
+    return ResponseEntity.of(teamStatsRepository.findByTeamName(teamName));
+  }
+}
@@ -0,0 +1,21 @@
+package study.querydsl.dto;
+
+import java.util.List;
+import lombok.Getter;
+
+/**
+ * 커서 기반 조회 결과. totalCount 없이 다음 페이지 토큰만 내려준다.
+ */
+@Getter
+public class CursorSlice<T> {
+
+  private final List<T> content;
+  private final String nextCursor;  //다음 페이지 요청 시 그대로 넘겨주면 됨. 마지막 페이지면 null
+  private final boolean hasNext;
+
+  public CursorSlice(List<T> content, String nextCursor, boolean hasNext) {
+    this.content = content;
+    this.nextCursor = nextCursor;
+    this.hasNext = hasNext;
+  }
+}
@@ -0,0 +1,61 @@
+package study.querydsl.dto;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.util.StringUtils;
+
+/**
+ * Keyset(seek) 페이징용 커서.
+ * 마지막으로 내려준 member.id 를 기억하고, 다음 페이지는 member.id > lastMemberId 로 바로 찾아간다.
+ * 클라이언트에는 내부 구조를 숨기기 위해 Base64 문자열(opaque token)로만 내려준다.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class MemberCursor {
+
+  private static final MemberCursor FIRST = new MemberCursor(null);
+
+  private final Long lastMemberId; //null 이면 첫 페이지
+
+  public static MemberCursor first() {
+    return FIRST;
+  }
+
+  public static MemberCursor after(Long lastMemberId) {
+    return new MemberCursor(lastMemberId);
+  }
+
+  /**
+   * encode() 로 만든 토큰만 받는다. Base64 가 아니거나 길이가 맞지 않으면 IllegalArgumentException
+   */
+  public static MemberCursor decode(String token) {
+    if (!StringUtils.hasText(token)) {
+      return FIRST;
+    }
+    byte[] bytes;
+    try {
+      bytes = Base64.getUrlDecoder().decode(token);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Invalid cursor: " + token, e);
+    }
+    if (bytes.length != Long.BYTES) {
+      throw new IllegalArgumentException("Invalid cursor: " + token);
+    }
+    return new MemberCursor(ByteBuffer.wrap(bytes).getLong());
+  }
+
+  public String encode() {
+    if (lastMemberId == null) {
+      return null;
+    }
+    byte[] bytes = ByteBuffer.allocate(Long.BYTES).putLong(lastMemberId).array();
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+  }
+
+  public boolean isFirst() {
+    return lastMemberId == null;
+  }
+}
@@ -1,5 +1,7 @@
 package study.querydsl.dto;
 
+import static org.springframework.util.StringUtils.hasText;
+
 import lombok.Data;
 
 @Data
@@ -10,5 +12,16 @@ public class MemberSearchCondition {
   private Integer ageGoe; //타입이 Integer인 이유 : Null이 나올수 있기 때문이다.
   private Integer ageLoe;
 
-
+  /**
+   * 같은 검색 조건이 같은 key 가 되도록 정규화한 복사본을 반환.
+   * (null, "", " ") 은 모두 조건 없음으로 취급되므로 null 로 맞춘다.
+   */
+  public MemberSearchCondition normalize() {
+    MemberSearchCondition normalized = new MemberSearchCondition();
+    normalized.setUsername(hasText(username) ? username : null);
+    normalized.setTeamName(hasText(teamName) ? teamName : null);
+    normalized.setAgeGoe(ageGoe);
+    normalized.setAgeLoe(ageLoe);
+    return normalized;
+  }
 }
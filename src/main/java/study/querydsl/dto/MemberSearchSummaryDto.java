@@ -0,0 +1,20 @@
+package study.querydsl.dto;
+
+import java.util.List;
+import lombok.Getter;
+import org.springframework.data.domain.Page;
+
+/**
+ * 검색 결과 페이지와, 같은 조건에 걸리는 member 의 팀별 통계를 한번에 내려준다.
+ */
+@Getter
+public class MemberSearchSummaryDto {
+
+  private final Page<MemberTeamDto> page;
+  private final List<TeamStatsDto> teams;
+
+  public MemberSearchSummaryDto(Page<MemberTeamDto> page, List<TeamStatsDto> teams) {
+    this.page = page;
+    this.teams = teams;
+  }
+}
@@ -0,0 +1,51 @@
+package study.querydsl.dto;
+
+/**
+ * MemberTeamDto 의 재사용(flyweight) 버전. 스트리밍 조회에서 row 마다 객체를 만들지 않고 같은 인스턴스에 값만 덮어쓴다.
+ * 콜백 안에서만 유효하므로 보관하려면 toDto() 로 복사해야 한다.
+ */
+public final class MemberTeamRow {
+
+  private long memberId;
+  private String username;
+  private int age;
+  private long teamId;
+  private boolean hasTeam;
+  private String teamName;
+
+  public void set(long memberId, String username, int age, long teamId, boolean hasTeam, String teamName) {
+    this.memberId = memberId;
+    this.username = username;
+    this.age = age;
+    this.teamId = teamId;
+    this.hasTeam = hasTeam;
+    this.teamName = teamName;
+  }
+
+  public long getMemberId() {
+    return memberId;
+  }
+
+  public String getUsername() {
+    return username;
+  }
+
+  public int getAge() {
+    return age;
+  }
+
+  /**
+   * 팀이 없으면 null
+   */
+  public Long getTeamId() {
+    return hasTeam ? teamId : null;
+  }
+
+  public String getTeamName() {
+    return teamName;
+  }
+
+  public MemberTeamDto toDto() {
+    return new MemberTeamDto(memberId, username, age, getTeamId(), teamName);
+  }
+}
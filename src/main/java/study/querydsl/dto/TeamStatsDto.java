@@ -0,0 +1,28 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+/**
+ * 팀별 member.age 통계. member 가 없는 팀은 count 0, avg/min/max 는 null
+ */
+@Data
+public class TeamStatsDto {
+
+  private Long teamId;
+  private String teamName;
+  private long count;
+  private long sum;
+  private Double avg;
+  private Integer min;
+  private Integer max;
+
+  public TeamStatsDto(Long teamId, String teamName, long count, long sum, Integer min, Integer max) {
+    this.teamId = teamId;
+    this.teamName = teamName;
+    this.count = count;
+    this.sum = sum;
+    this.avg = count == 0 ? null : (double) sum / count;
+    this.min = min;
+    this.max = max;
+  }
+}
@@ -0,0 +1,36 @@
+package study.querydsl.entity;
+
+import lombok.Getter;
+
+/**
+ * member 나이 구간. QuerydslBasicTest.complexCase 의 CaseBuilder 구간과 같다.
+ *
+ * member.age_bucket 컬럼에 이름(STRING)으로 저장되고 DB 가 age 로 계산한다. (Member.AGE_BUCKET_SQL)
+ * 이름 순서가 구간 순서와 같도록 지었으므로 age_bucket 으로 정렬하면 나이 구간 순서가 된다.
+ */
+@Getter
+public enum AgeBucket {
+
+  AGE_0_20("0~20살"),
+  AGE_21_30("21~30살"),
+  OTHER("기타");
+
+  private final String label;
+
+  AgeBucket(String label) {
+    this.label = label;
+  }
+
+  /**
+   * Member.AGE_BUCKET_SQL 과 같은 규칙
+   */
+  public static AgeBucket of(int age) {
+    if (age >= 0 && age <= 20) {
+      return AGE_0_20;
+    }
+    if (age >= 21 && age <= 30) {
+      return AGE_21_30;
+    }
+    return OTHER;
+  }
+}
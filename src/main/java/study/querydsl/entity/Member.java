@@ -5,15 +5,36 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.data.util.Lazy;
+import study.querydsl.repository.MemberPageCacheListener;
+import study.querydsl.repository.index.MemberIndexListener;
+import study.querydsl.repository.support.QueryCacheListener;
 
 @Entity
+@Table(indexes = {
+    @Index(name = "idx_member_team_age", columnList = "team_id, age"), //teamName + age 범위 검색 (team 을 먼저 찾고 team_id 로 좁힌 뒤 age 범위)
+    @Index(name = "idx_member_username", columnList = "username"),
+    @Index(name = "idx_member_age_bucket", columnList = "age_bucket, display_key"), //나이 구간으로 거르고 display_key 순으로 정렬할 때 정렬 없이 인덱스 순서대로
+    @Index(name = "idx_member_display_key", columnList = "display_key")
+}) //스키마는 db/migration 이 관리. 여기 선언은 ddl-auto=create 로 띄우는 테스트용 + 문서용으로 마이그레이션과 같게 유지
+@EntityListeners({MemberIndexListener.class, MemberPageCacheListener.class, QueryCacheListener.class}) //인메모리 검색 인덱스, 페이지 캐시, 서브쿼리/count 캐시 갱신
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "member")
 @Getter
 @RequiredArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "username", "age"})
 public class Member {
 
-    @Id @GeneratedValue
+    //DB 가 계산하는 컬럼(generated column)의 식. V3__member_generated_columns.sql 과 같게 유지
+    static final String AGE_BUCKET_SQL =
+        "case when age between 0 and 20 then 'AGE_0_20' when age between 21 and 30 then 'AGE_21_30' else 'OTHER' end";
+    static final String DISPLAY_KEY_SQL = "username || '_' || cast(age as varchar(11))";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
+    @SequenceGenerator(name = "member_seq_generator", sequenceName = "member_seq", allocationSize = 100) //insert 마다 시퀀스를 조회하지 않도록 100개씩 미리 할당
     @Column(name = "member_id")
     private Long id;
     private String username;
@@ -23,6 +44,22 @@ public class Member {
     @JoinColumn(name = "team_id")
     private Team team;
 
+    /**
+     * age 로 정해지는 나이 구간. 조회마다 CaseBuilder 로 계산하지 않고 인덱스로 거르고 정렬할 수 있다.
+     * DB 가 계산하므로 insert/update 에는 넣지 않고, bulk update 나 JDBC 로 바꾼 경우에도 맞게 유지된다.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "age_bucket", insertable = false, updatable = false,
+        columnDefinition = "varchar(16) generated always as (" + AGE_BUCKET_SQL + ")")
+    private AgeBucket ageBucket;
+
+    /**
+     * username + "_" + age. username 이 없으면 null
+     */
+    @Column(name = "display_key", insertable = false, updatable = false,
+        columnDefinition = "varchar(267) generated always as (" + DISPLAY_KEY_SQL + ")")
+    private String displayKey;
+
     public Member(String username){
         this(username, 0);
     }
@@ -40,6 +77,28 @@ public class Member {
         }
     }
 
+    /**
+     * 연관관계의 주인인 member.team 만 채우고 team.members 에는 넣지 않는다.
+     * 대량으로 넣을 때 flush/clear 를 해도 team 이 만든 member 를 모두 들고 있어서 메모리가 member 수만큼 늘지 않도록 한다.
+     * 같은 영속성 컨텍스트에서 team.getMembers() 로는 보이지 않는다.
+     */
+    public static Member ofTeamOnly(String username, int age, Team team) {
+        Member member = new Member(username, age);
+        member.team = team;
+        return member;
+    }
+
+    /**
+     * insert/update 후 다시 조회하지 않도록 DB 와 같은 규칙으로 엔티티 값도 맞춰둔다. (값은 DB 가 계산한 것이 기준)
+     * @GeneratedColumn/@Generated 로 DB 값을 읽어오게 하면 Hibernate 가 member insert 의 JDBC batch 를 끄고 건마다 다시 select 한다.
+     */
+    @PrePersist
+    @PreUpdate
+    private void computeDerivedColumns() {
+        this.ageBucket = AgeBucket.of(age);
+        this.displayKey = username == null ? null : username + "_" + age;
+    }
+
     private void changeTeam(Team team) {
         this.team = team;
         team.getMembers().add(this);    //양방향 연관관계이므로 반대쪽에도 넣어줘야함.
@@ -5,21 +5,36 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import study.querydsl.repository.MemberPageCacheListener;
+import study.querydsl.repository.index.MemberIndexListener;
+import study.querydsl.repository.support.QueryCacheListener;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Getter
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_team_name", columnNames = "name")) //팀 이름으로 찾으므로 유일 + 인덱스
+@EntityListeners({MemberIndexListener.class, MemberPageCacheListener.class, QueryCacheListener.class}) //팀 이름이 바뀌면 인메모리 검색 인덱스의 팀 사전, member 페이지 캐시, 서브쿼리/count 캐시도 갱신
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "team")
+@BatchSize(size = 100) //member.team 프록시를 초기화할 때 100개씩 in 쿼리로 한번에 조회
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "name"})
 public class Team {
 
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "team_seq_generator")
+    @SequenceGenerator(name = "team_seq_generator", sequenceName = "team_seq", allocationSize = 100) //insert 마다 시퀀스를 조회하지 않도록 100개씩 미리 할당
     @Column(name = "team_id")
     private Long id;
     private String name;
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "team.members")
+    @BatchSize(size = 100) //여러 team 의 members 를 in 쿼리로 한번에 조회
     @OneToMany(mappedBy = "team")
     private List<Member> members = new ArrayList<>();
 
@@ -27,4 +42,8 @@ public class Team {
     public Team(String name){
         this.name = name;
     }
+
+    public void changeName(String name) {
+        this.name = name;
+    }
 }
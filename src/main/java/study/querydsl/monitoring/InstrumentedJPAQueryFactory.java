@@ -0,0 +1,61 @@
+package study.querydsl.monitoring;
+
+import com.querydsl.core.DefaultQueryMetadata;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPAProvider;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import java.util.List;
+
+/**
+ * select/selectFrom/from 으로 만든 쿼리의 fetch()/fetchOne()/fetchFirst() 를 QueryMetrics 로 기록하는 JPAQueryFactory.
+ * update/delete/insert 절은 그대로다.
+ */
+public class InstrumentedJPAQueryFactory extends JPAQueryFactory {
+
+  private final EntityManager entityManager;
+  private final QueryMetrics metrics;
+
+  public InstrumentedJPAQueryFactory(EntityManager entityManager, QueryMetrics metrics) {
+    super(entityManager);
+    this.entityManager = entityManager;
+    this.metrics = metrics;
+  }
+
+  @Override
+  public JPAQuery<?> query() {
+    return new InstrumentedJPAQuery<Void>(entityManager, JPAProvider.getTemplates(entityManager),
+        new DefaultQueryMetadata(), metrics);
+  }
+
+  static class InstrumentedJPAQuery<T> extends JPAQuery<T> {
+
+    private final QueryMetrics metrics;
+
+    InstrumentedJPAQuery(EntityManager entityManager, JPQLTemplates templates, QueryMetadata metadata,
+        QueryMetrics metrics) {
+      super(entityManager, templates, metadata);
+      this.metrics = metrics;
+    }
+
+    @Override
+    public List<T> fetch() {
+      return metrics.record(getMetadata(), super::fetch, List::size);
+    }
+
+    @Override
+    public T fetchOne() {
+      return metrics.record(getMetadata(), super::fetchOne, row -> row == null ? 0 : 1);
+    }
+
+    @Override
+    public JPAQuery<T> clone(EntityManager entityManager, JPQLTemplates templates) {
+      InstrumentedJPAQuery<T> query =
+          new InstrumentedJPAQuery<>(entityManager, templates, getMetadata().clone(), metrics);
+      query.clone(this);
+      return query;
+    }
+  }
+}
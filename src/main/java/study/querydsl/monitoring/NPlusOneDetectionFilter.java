@@ -0,0 +1,31 @@
+package study.querydsl.monitoring;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * HTTP 요청 하나를 N+1 감지 구간으로 잡는다.
+ * OSIV 로 뷰 렌더링/직렬화 중에 일어나는 지연 로딩까지 함께 센다.
+ */
+@Component
+public class NPlusOneDetectionFilter extends OncePerRequestFilter {
+
+  private final NPlusOneDetector detector;
+
+  public NPlusOneDetectionFilter(NPlusOneDetector detector) {
+    this.detector = detector;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+      FilterChain filterChain) throws ServletException, IOException {
+    try (NPlusOneDetector.Scope scope = detector.open(request.getMethod() + " " + request.getRequestURI())) {
+      filterChain.doFilter(request, response);
+    }
+  }
+}
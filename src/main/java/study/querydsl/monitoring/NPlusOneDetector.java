@@ -0,0 +1,78 @@
+package study.querydsl.monitoring;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 한 구간(요청, 테스트 블록 등)에서 실행된 SQL 수가 threshold 를 넘으면 N+1 로 보고 알린다.
+ * mode 가 log 면 경고 로그만 남기고, fail 이면 예외를 던져 테스트를 실패시킨다.
+ *
+ * <pre>
+ * try (NPlusOneDetector.Scope scope = detector.open("search")) {
+ *   ...
+ * }
+ * </pre>
+ */
+@Slf4j
+@Component
+public class NPlusOneDetector {
+
+  public enum Mode {
+    LOG, FAIL
+  }
+
+  private final QueryCountListener listener;
+  private final int threshold;
+  private final Mode mode;
+
+  public NPlusOneDetector(QueryCountListener listener,
+      @Value("${querydsl.n-plus-one.threshold:20}") int threshold,
+      @Value("${querydsl.n-plus-one.mode:log}") Mode mode) {
+    this.listener = listener;
+    this.threshold = threshold;
+    this.mode = mode;
+  }
+
+  public Scope open(String name) {
+    return open(name, threshold);
+  }
+
+  public Scope open(String name, int threshold) {
+    return new Scope(name, threshold);
+  }
+
+  public class Scope implements AutoCloseable {
+
+    private final String name;
+    private final int threshold;
+    private final long start;
+
+    private Scope(String name, int threshold) {
+      this.name = name;
+      this.threshold = threshold;
+      this.start = listener.currentCount();
+    }
+
+    /**
+     * scope 를 연 뒤 현재 스레드에서 실행된 SQL 수
+     */
+    public long getCount() {
+      return listener.currentCount() - start;
+    }
+
+    @Override
+    public void close() {
+      long count = getCount();
+      if (count <= threshold) {
+        return;
+      }
+
+      String message = String.format("N+1 의심: [%s] 에서 SQL %d 건 실행 (threshold=%d)", name, count, threshold);
+      if (mode == Mode.FAIL) {
+        throw new IllegalStateException(message);
+      }
+      log.warn(message);
+    }
+  }
+}
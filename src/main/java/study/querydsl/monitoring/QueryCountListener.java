@@ -0,0 +1,30 @@
+package study.querydsl.monitoring;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import java.sql.SQLException;
+import org.springframework.stereotype.Component;
+
+/**
+ * p6spy 를 통해 실행되는 SQL 수를 스레드별로 센다.
+ * 빈으로 등록만 하면 p6spy-spring-boot-starter 가 리스너로 붙여준다.
+ * addBatch 는 세지 않고 executeBatch 한 번을 쿼리 한 번으로 본다.
+ */
+@Component
+public class QueryCountListener extends SimpleJdbcEventListener {
+
+  private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+  @Override
+  public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos,
+      SQLException e) {
+    COUNT.get()[0]++;
+  }
+
+  /**
+   * 현재 스레드에서 지금까지 실행된 SQL 수. 구간별 개수는 시작/끝 값의 차이로 구한다.
+   */
+  public long currentCount() {
+    return COUNT.get()[0];
+  }
+}
@@ -0,0 +1,158 @@
+package study.querydsl.monitoring;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Collection;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import org.springframework.stereotype.Component;
+
+/**
+ * 쿼리 한 번마다 걸린 시간, 조회된 row 수, 실제로 나간 SQL 수를 Micrometer 에 기록한다.
+ * 어느 repository 메서드에서, 어떤 조건 조합(shape)으로 실행됐는지를 태그로 붙인다.
+ *
+ * <ul>
+ *   <li>querydsl.query : 실행 시간 (percentile, histogram)</li>
+ *   <li>querydsl.query.rows : 조회된 row 수</li>
+ *   <li>querydsl.query.statements : 쿼리 하나를 조회하는 동안 나간 SQL 수 (N+1 이면 1보다 크다)</li>
+ * </ul>
+ *
+ * 집계는 /actuator/querydsl (QueryMetricsEndpoint), 개별 meter 는 /actuator/metrics/querydsl.query 에서 볼 수 있다.
+ */
+@Component
+public class QueryMetrics {
+
+  public static final String TIMER = "querydsl.query";
+  public static final String ROWS = "querydsl.query.rows";
+  public static final String STATEMENTS = "querydsl.query.statements";
+
+  static final String UNKNOWN_METHOD = "unknown";
+
+  //메서드를 찾을 때 건너뛰는 패키지 (계측 코드, 공통 지원 코드)
+  private static final Set<String> SKIPPED_PACKAGES =
+      Set.of("study.querydsl.monitoring", "study.querydsl.repository.support");
+
+  private static final StackWalker STACK_WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+  private final MeterRegistry registry;
+  private final QueryCountListener queryCountListener;
+  private final ConcurrentMap<Key, Meters> meters = new ConcurrentHashMap<>();
+
+  public QueryMetrics(MeterRegistry registry, QueryCountListener queryCountListener) {
+    this.registry = registry;
+    this.queryCountListener = queryCountListener;
+  }
+
+  /**
+   * Querydsl 쿼리 실행. 메서드 태그는 호출한 repository 메서드, shape 은 where 절에서 구한다.
+   */
+  public <T> T record(QueryMetadata metadata, Supplier<T> fetch, ToIntFunction<T> rows) {
+    return record(callerMethod(), shapeOf(metadata.getWhere()), fetch, rows);
+  }
+
+  public <T> T record(String method, String shape, Supplier<T> fetch, ToIntFunction<T> rows) {
+    Meters meter = meters.computeIfAbsent(new Key(method, shape), this::register);
+    long statementsBefore = queryCountListener.currentCount();
+    long start = System.nanoTime();
+    T result;
+    try {
+      result = fetch.get();
+    } finally {
+      meter.timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      meter.statements.record(queryCountListener.currentCount() - statementsBefore);
+    }
+    meter.rows.record(rows.applyAsInt(result));
+    return result;
+  }
+
+  Collection<Meters> meters() {
+    return meters.values();
+  }
+
+  private Meters register(Key key) {
+    Timer timer = Timer.builder(TIMER)
+        .tag("method", key.method())
+        .tag("shape", key.shape())
+        .publishPercentiles(0.5, 0.95, 0.99)
+        .publishPercentileHistogram()
+        .register(registry);
+    DistributionSummary rows = DistributionSummary.builder(ROWS)
+        .tag("method", key.method())
+        .tag("shape", key.shape())
+        .register(registry);
+    DistributionSummary statements = DistributionSummary.builder(STATEMENTS)
+        .tag("method", key.method())
+        .tag("shape", key.shape())
+        .register(registry);
+    return new Meters(key, timer, rows, statements);
+  }
+
+  /**
+   * 쿼리를 실행한 study.querydsl 코드 중 가장 가까운 메서드. ex) MemberRepositoryImpl.searchPageSimple
+   * 람다 안에서 실행했으면 람다를 감싼 메서드 이름을 쓴다.
+   */
+  static String callerMethod() {
+    return STACK_WALKER.walk(frames -> frames
+        .filter(frame -> {
+          String packageName = frame.getDeclaringClass().getPackageName();
+          return packageName.startsWith("study.querydsl") && !SKIPPED_PACKAGES.contains(packageName);
+        })
+        .findFirst()
+        .map(frame -> frame.getDeclaringClass().getSimpleName() + "." + methodName(frame.getMethodName()))
+        .orElse(UNKNOWN_METHOD));
+  }
+
+  private static String methodName(String name) {
+    //lambda$searchPageComplex$0 -> searchPageComplex
+    if (name.startsWith("lambda$")) {
+      int end = name.indexOf('$', "lambda$".length());
+      return end < 0 ? name : name.substring("lambda$".length(), end);
+    }
+    return name;
+  }
+
+  /**
+   * where 절을 and 로 나눈 조건마다 "경로:연산자" 로 나타낸다. 값은 무시하므로 조합 수만큼만 생긴다.
+   * ex) member.username:eq,team.name:eq,member.age:goe
+   */
+  static String shapeOf(Predicate where) {
+    if (where == null) {
+      return "none";
+    }
+    StringJoiner joiner = new StringJoiner(",");
+    appendShape(joiner, where);
+    return joiner.toString();
+  }
+
+  private static void appendShape(StringJoiner joiner, Expression<?> expression) {
+    if (expression instanceof Operation<?> operation) {
+      if (operation.getOperator() == Ops.AND) {
+        operation.getArgs().forEach(arg -> appendShape(joiner, arg));
+        return;
+      }
+      Expression<?> first = operation.getArgs().isEmpty() ? null : operation.getArg(0);
+      String target = first instanceof Path<?> path ? path.toString() : "expr";
+      joiner.add(target + ":" + operation.getOperator().name().toLowerCase());
+      return;
+    }
+    joiner.add("expr");
+  }
+
+  record Key(String method, String shape) {
+  }
+
+  record Meters(Key key, Timer timer, DistributionSummary rows, DistributionSummary statements) {
+  }
+}
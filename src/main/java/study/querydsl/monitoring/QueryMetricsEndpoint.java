@@ -0,0 +1,60 @@
+package study.querydsl.monitoring;
+
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * /actuator/querydsl : repository 메서드 + 조건 조합별 쿼리 통계. 총 소요 시간이 큰 순서로 보여준다.
+ */
+@Component
+@Endpoint(id = "querydsl")
+public class QueryMetricsEndpoint {
+
+  private final QueryMetrics queryMetrics;
+
+  public QueryMetricsEndpoint(QueryMetrics queryMetrics) {
+    this.queryMetrics = queryMetrics;
+  }
+
+  @ReadOperation
+  public List<QueryStats> queries() {
+    return queryMetrics.meters().stream()
+        .map(QueryMetricsEndpoint::toStats)
+        .sorted(Comparator.comparingDouble(QueryStats::totalMs).reversed())
+        .toList();
+  }
+
+  private static QueryStats toStats(QueryMetrics.Meters meters) {
+    HistogramSnapshot snapshot = meters.timer().takeSnapshot();
+    return new QueryStats(
+        meters.key().method(),
+        meters.key().shape(),
+        snapshot.count(),
+        snapshot.total(TimeUnit.MILLISECONDS),
+        snapshot.mean(TimeUnit.MILLISECONDS),
+        percentile(snapshot, 0.95),
+        percentile(snapshot, 0.99),
+        snapshot.max(TimeUnit.MILLISECONDS),
+        meters.rows().mean(),
+        meters.statements().mean());
+  }
+
+  private static double percentile(HistogramSnapshot snapshot, double percentile) {
+    for (ValueAtPercentile value : snapshot.percentileValues()) {
+      if (value.percentile() == percentile) {
+        return value.value(TimeUnit.MILLISECONDS);
+      }
+    }
+    return Double.NaN;
+  }
+
+  public record QueryStats(String method, String shape, long count, double totalMs, double meanMs,
+                           double p95Ms, double p99Ms, double maxMs, double meanRows, double meanStatements) {
+  }
+}
@@ -0,0 +1,32 @@
+package study.querydsl.monitoring;
+
+import java.util.List;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+import study.querydsl.monitoring.SlowQueryLog.SlowQuery;
+
+/**
+ * /actuator/slowqueries : 최근 느린 쿼리와 실행 계획 (최근 것부터). DELETE 로 비운다.
+ */
+@Component
+@Endpoint(id = "slowqueries")
+public class SlowQueryEndpoint {
+
+  private final SlowQueryListener slowQueryListener;
+
+  public SlowQueryEndpoint(SlowQueryListener slowQueryListener) {
+    this.slowQueryListener = slowQueryListener;
+  }
+
+  @ReadOperation
+  public List<SlowQuery> slowQueries() {
+    return slowQueryListener.getSlowQueryLog().recent();
+  }
+
+  @DeleteOperation
+  public void clear() {
+    slowQueryListener.getSlowQueryLog().clear();
+  }
+}
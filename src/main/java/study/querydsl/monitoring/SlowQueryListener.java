@@ -0,0 +1,117 @@
+package study.querydsl.monitoring;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import jakarta.servlet.http.HttpServletRequest;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.StringJoiner;
+import java.util.concurrent.ThreadLocalRandom;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import study.querydsl.monitoring.SlowQueryLog.SlowQuery;
+
+/**
+ * threshold 보다 오래 걸린 SQL 만 로그로 남기고 SlowQueryLog 에 보관한다. (/actuator/slowqueries)
+ * 모든 SQL 을 찍는 org.hibernate.SQL debug 로그 대신 사용한다.
+ *
+ * select 는 같은 커넥션에서 EXPLAIN 을 실행해 실행 계획도 같이 남긴다. 같은 SQL 의 계획이 이미 있으면 다시 조회하지 않는다.
+ * 느린 쿼리가 너무 많을 때는 sample-rate 비율만큼만 기록한다.
+ */
+@Slf4j
+@Component
+public class SlowQueryListener extends SimpleJdbcEventListener {
+
+  private final long thresholdNanos;
+  private final double sampleRate;
+  private final boolean explain;
+  private final SlowQueryLog slowQueryLog;
+
+  public SlowQueryListener(
+      @Value("${querydsl.slow-query.threshold:200ms}") Duration threshold,
+      @Value("${querydsl.slow-query.sample-rate:1.0}") double sampleRate,
+      @Value("${querydsl.slow-query.explain:true}") boolean explain,
+      @Value("${querydsl.slow-query.capacity:100}") int capacity) {
+    this.thresholdNanos = threshold.toNanos();
+    this.sampleRate = sampleRate;
+    this.explain = explain;
+    this.slowQueryLog = new SlowQueryLog(capacity);
+  }
+
+  public SlowQueryLog getSlowQueryLog() {
+    return slowQueryLog;
+  }
+
+  @Override
+  public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos,
+      SQLException e) {
+    if (timeElapsedNanos < thresholdNanos) {
+      return;
+    }
+    if (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+      return;
+    }
+
+    String sql = statementInformation.getSql();
+    String sqlWithValues = statementInformation.getSqlWithValues();
+    String plan = isSelect(sql) && explain ? plan(statementInformation, sql, sqlWithValues) : null;
+    SlowQuery entry = new SlowQuery(Instant.now(), Duration.ofNanos(timeElapsedNanos).toMillis(),
+        QueryMetrics.callerMethod(), currentRequest(), sql, sqlWithValues, plan,
+        e == null ? null : e.getMessage());
+    slowQueryLog.add(entry);
+
+    log.warn("slow query {}ms [{}] {}\n{}", entry.elapsedMs(), entry.method(), sqlWithValues,
+        plan == null ? "" : plan);
+  }
+
+  private String plan(StatementInformation statementInformation, String sql, String sqlWithValues) {
+    String plan = slowQueryLog.planOf(sql);
+    if (plan != null) {
+      return plan;
+    }
+
+    //p6spy 로 감싸지 않은 커넥션이므로 EXPLAIN 은 다시 이 리스너로 들어오지 않는다.
+    Connection connection = statementInformation.getConnectionInformation().getConnection();
+    try (Statement statement = connection.createStatement();
+        ResultSet rs = statement.executeQuery("explain " + sqlWithValues)) {
+      StringJoiner joiner = new StringJoiner("\n");
+      while (rs.next()) {
+        joiner.add(rs.getString(1));
+      }
+      return joiner.toString();
+    } catch (SQLException ex) {
+      log.debug("explain failed: {}", sqlWithValues, ex);
+      return null;
+    }
+  }
+
+  private static boolean isSelect(String sql) {
+    String trimmed = sql.stripLeading();
+    if (trimmed.startsWith("/*")) { //hibernate.use_sql_comments
+      int end = trimmed.indexOf("*/");
+      trimmed = end < 0 ? trimmed : trimmed.substring(end + 2).stripLeading();
+    }
+    return trimmed.regionMatches(true, 0, "select", 0, "select".length());
+  }
+
+  /**
+   * 웹 요청이면 "GET /v3/members?teamName=teamA&ageGoe=20" 처럼 요청 경로와 검색 조건 파라미터
+   */
+  private static String currentRequest() {
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+    if (!(attributes instanceof ServletRequestAttributes servletAttributes)) {
+      return null;
+    }
+    HttpServletRequest request = servletAttributes.getRequest();
+    String query = request.getQueryString();
+    return request.getMethod() + " " + request.getRequestURI() + (query == null ? "" : "?" + query);
+  }
+}
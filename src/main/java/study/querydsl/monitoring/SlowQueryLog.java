@@ -0,0 +1,71 @@
+package study.querydsl.monitoring;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 최근 느린 쿼리 capacity 건을 보관하는 링 버퍼. 가득 차면 가장 오래된 것부터 덮어쓴다.
+ * 느린 쿼리가 나올 때만 쓰므로 단순하게 synchronized 로 보호한다.
+ */
+public class SlowQueryLog {
+
+  private final SlowQuery[] entries;
+  private int next;
+  private int size;
+
+  public SlowQueryLog(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be greater than zero: " + capacity);
+    }
+    this.entries = new SlowQuery[capacity];
+  }
+
+  public synchronized void add(SlowQuery entry) {
+    entries[next] = entry;
+    next = (next + 1) % entries.length;
+    size = Math.min(size + 1, entries.length);
+  }
+
+  /**
+   * 최근 것부터
+   */
+  public synchronized List<SlowQuery> recent() {
+    List<SlowQuery> result = new ArrayList<>(size);
+    for (int i = 1; i <= size; i++) {
+      result.add(entries[Math.floorMod(next - i, entries.length)]);
+    }
+    return result;
+  }
+
+  /**
+   * 같은 SQL(? 바인딩 전)로 이미 받아둔 실행 계획. 없으면 null
+   */
+  public synchronized String planOf(String sql) {
+    for (int i = 0; i < size; i++) {
+      SlowQuery entry = entries[i];
+      if (entry.plan() != null && entry.sql().equals(sql)) {
+        return entry.plan();
+      }
+    }
+    return null;
+  }
+
+  public synchronized void clear() {
+    Arrays.fill(entries, null);
+    next = 0;
+    size = 0;
+  }
+
+  /**
+   * @param method   쿼리를 실행한 repository 메서드 (QueryMetrics 와 같은 방식으로 찾는다)
+   * @param request  웹 요청에서 실행됐으면 요청 경로와 파라미터 (검색 조건)
+   * @param sql      ? 가 남아있는 SQL
+   * @param sqlWithValues 바인딩 값을 채운 SQL
+   * @param plan     EXPLAIN 결과. select 가 아니거나 실패했으면 null
+   */
+  public record SlowQuery(Instant at, long elapsedMs, String method, String request, String sql,
+                          String sqlWithValues, String plan, String error) {
+  }
+}
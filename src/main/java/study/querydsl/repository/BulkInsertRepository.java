@@ -0,0 +1,43 @@
+package study.querydsl.repository;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 대량 저장용 repository.
+ *
+ * hibernate.jdbc.batch_size 단위로 flush 해서 JDBC batch insert 로 묶어 보내고, 곧바로 clear 해서
+ * 영속성 컨텍스트에 엔티티가 계속 쌓이지 않게 한다. (Member, Team 모두 시퀀스 기반 id 라서 batch insert 가능)
+ * Iterable 을 넘기므로 전체 데이터를 List 로 만들지 않고 생성하면서 저장할 수 있다.
+ *
+ * 중간에 em.clear() 를 하므로 호출한 쪽의 영속성 컨텍스트도 비워진다.
+ */
+@Repository
+public class BulkInsertRepository {
+
+  private final EntityManager em;
+  private final int batchSize;
+
+  public BulkInsertRepository(EntityManager em,
+      @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}") int batchSize) {
+    this.em = em;
+    this.batchSize = batchSize;
+  }
+
+  @Transactional
+  public <T> long saveAll(Iterable<T> entities) {
+    long count = 0;
+    for (T entity : entities) {
+      em.persist(entity);
+      if (++count % batchSize == 0) {
+        em.flush();
+        em.clear();
+      }
+    }
+    em.flush();
+    em.clear();
+    return count;
+  }
+}
@@ -0,0 +1,28 @@
+package study.querydsl.repository;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 청크 단위 벌크 연산 진행 상황.
+ */
+@Getter
+@ToString
+public class BulkProgress {
+
+  private final int completedChunks;
+  private final int totalChunks;
+  private final long affectedRows;  //지금까지 update/delete 된 row 수
+  private final long lastId;        //마지막으로 처리한 청크의 끝 id
+
+  public BulkProgress(int completedChunks, int totalChunks, long affectedRows, long lastId) {
+    this.completedChunks = completedChunks;
+    this.totalChunks = totalChunks;
+    this.affectedRows = affectedRows;
+    this.lastId = lastId;
+  }
+
+  public boolean isDone() {
+    return completedChunks == totalChunks;
+  }
+}
@@ -0,0 +1,22 @@
+package study.querydsl.repository;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * MemberBulkRepository 의 벌크 연산 하나가 끝났을 때(모든 청크가 커밋됐거나 중간에 실패했을 때) 한번 발행한다.
+ * 청크마다 발행하는 MemberRangeChangedEvent 와 달리 연산 전체의 id 범위를 담는다.
+ * 청크마다 다시 계산하기에는 비싼 곳(팀 통계 등)은 이 이벤트만 받는다.
+ */
+@Getter
+@ToString
+public class MemberBulkFinishedEvent {
+
+  private final long fromId;
+  private final long toId;
+
+  public MemberBulkFinishedEvent(long fromId, long toId) {
+    this.fromId = fromId;
+    this.toId = toId;
+  }
+}
@@ -0,0 +1,162 @@
+package study.querydsl.repository;
+
+import static study.querydsl.entity.QMember.member;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.LongBinaryOperator;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.shard.ShardWriteGuard;
+
+/**
+ * Member 벌크 update/delete 를 id 범위 청크로 나눠서 실행한다.
+ *
+ * 한번에 전체를 update 하면 테이블 전체에 락이 오래 걸리므로, 청크마다 별도 트랜잭션(REQUIRES_NEW)으로 커밋한다.
+ * 벌크 연산은 영속성 컨텍스트를 거치지 않으므로 청크가 끝날 때마다 현재 영속성 컨텍스트에서
+ * 해당 범위의 Member 를 내려서 오래된 값이 보이지 않게 한다. (QuerydslBasicTest.bulkUpdate 의 em.flush(), em.clear() 대신)
+ * 2차 캐시의 Member region 은 Hibernate 가 벌크 HQL 을 실행할 때마다 비우므로 청크마다 비우지 않고 연산이 끝나면 한번만 비운다.
+ * 같은 이유로 row 가 바뀐 청크가 커밋될 때마다 MemberRangeChangedEvent 를, 연산이 끝나면 MemberBulkFinishedEvent 를 한번 발행한다.
+ *
+ * 다음 청크는 청크 끝 id 다음에 있는 조건에 맞는 가장 작은 id 부터 시작하므로 id 가 듬성듬성해도 빈 범위를 돌지 않는다.
+ *
+ * 주의
+ * 1. 청크는 새 트랜잭션에서 실행되므로 호출한 트랜잭션에서 커밋하지 않은 데이터는 보이지 않는다.
+ *    호출한 트랜잭션에서 같은 Member 를 수정했다면 락을 기다리게 되므로 트랜잭션 밖에서 호출해야 한다.
+ * 2. JPQL 벌크 연산은 join 을 쓸 수 없으므로 predicate 는 member 의 필드만 사용해야 한다.
+ */
+@Repository
+public class MemberBulkRepository {
+
+  private final EntityManagerFactory emf;
+  private final JPAQueryFactory queryFactory;
+  private final TransactionTemplate chunkTransaction;
+  private final ApplicationEventPublisher eventPublisher;
+  private final boolean sharded;
+
+  public MemberBulkRepository(EntityManager em, EntityManagerFactory emf,
+      PlatformTransactionManager transactionManager, ApplicationEventPublisher eventPublisher,
+      @Value("${querydsl.sharding.enabled:false}") boolean sharded) {
+    this.emf = emf;
+    this.eventPublisher = eventPublisher;
+    this.sharded = sharded;
+    this.queryFactory = new JPAQueryFactory(em);
+    this.chunkTransaction = new TransactionTemplate(transactionManager);
+    this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+  }
+
+  public long update(Predicate predicate, Consumer<JPAUpdateClause> assignments, int chunkSize,
+      Consumer<BulkProgress> progressListener) {
+    return executeInChunks(predicate, chunkSize, progressListener, (fromId, toId) -> {
+      JPAUpdateClause update = queryFactory
+          .update(member)
+          .where(predicate, member.id.between(fromId, toId));
+      assignments.accept(update);
+      return update.execute();
+    });
+  }
+
+  public long delete(Predicate predicate, int chunkSize, Consumer<BulkProgress> progressListener) {
+    return executeInChunks(predicate, chunkSize, progressListener, (fromId, toId) ->
+        queryFactory
+            .delete(member)
+            .where(predicate, member.id.between(fromId, toId))
+            .execute());
+  }
+
+  private long executeInChunks(Predicate predicate, int chunkSize, Consumer<BulkProgress> progressListener,
+      LongBinaryOperator chunk) {
+    Assert.isTrue(chunkSize > 0, "Chunk size must be greater than zero!");
+    Assert.state(!sharded, ShardWriteGuard.MESSAGE); //엔티티 이벤트를 거치지 않으므로 ShardWriteGuard 대신 여기서 막는다
+
+    Tuple range = chunkTransaction.execute(status -> queryFactory
+        .select(member.id.min(), member.id.max())
+        .from(member)
+        .where(predicate)
+        .fetchOne());
+    Long minId = range == null ? null : range.get(member.id.min());
+    Long maxId = range == null ? null : range.get(member.id.max());
+    if (minId == null || maxId == null) {
+      return 0;
+    }
+
+    long affectedRows = 0;
+    int completedChunks = 0;
+    try {
+      Long fromId = minId;
+      while (fromId != null) {
+        long from = fromId;
+        long toId = Math.min(from + chunkSize - 1, maxId);
+        Chunk result = chunkTransaction.execute(status -> new Chunk(
+            chunk.applyAsLong(from, toId),
+            toId < maxId ? nextId(predicate, toId, maxId) : null)); //청크와 같은 트랜잭션에서 다음 시작 id 를 찾는다
+        long affected = result == null ? 0 : result.affected();
+        fromId = result == null ? null : result.nextId();
+        affectedRows += affected;
+        completedChunks++;
+
+        detach(from, toId);
+        if (affected > 0) {
+          eventPublisher.publishEvent(new MemberRangeChangedEvent(from, toId)); //인메모리 인덱스 등 엔티티를 거치지 않은 변경을 알아야 하는 곳에 알림
+        }
+        if (progressListener != null) {
+          //남은 범위로 다시 어림한 전체 청크 수. 빈 범위를 건너뛰면 줄어든다
+          int totalChunks = completedChunks + (fromId == null ? 0 : (int) ((maxId - fromId) / chunkSize + 1));
+          progressListener.accept(new BulkProgress(completedChunks, totalChunks, affectedRows, toId));
+        }
+      }
+    } finally {
+      if (completedChunks > 0) { //중간에 실패해도 이미 커밋된 청크가 있으면 알린다
+        emf.getCache().evict(Member.class);
+        eventPublisher.publishEvent(new MemberBulkFinishedEvent(minId, maxId));
+      }
+    }
+    return affectedRows;
+  }
+
+  private Long nextId(Predicate predicate, long afterId, long maxId) {
+    return queryFactory
+        .select(member.id.min())
+        .from(member)
+        .where(predicate, member.id.gt(afterId), member.id.loe(maxId))
+        .fetchOne();
+  }
+
+  /**
+   * 현재 스레드의 영속성 컨텍스트에 올라와 있는 해당 범위의 Member 를 내린다.
+   */
+  private void detach(long fromId, long toId) {
+    EntityManager current = EntityManagerFactoryUtils.getTransactionalEntityManager(emf);
+    if (current == null) {
+      return;
+    }
+    SessionImplementor session = current.unwrap(SessionImplementor.class);
+    for (Map.Entry<Object, EntityEntry> entry : session.getPersistenceContextInternal().reentrantSafeEntityEntries()) {
+      if (entry.getKey() instanceof Member managed
+          && managed.getId() != null && managed.getId() >= fromId && managed.getId() <= toId) {
+        current.detach(managed);
+      }
+    }
+  }
+
+  /**
+   * 청크에서 바뀐 row 수와 다음 청크의 시작 id. 남은 row 가 없으면 nextId 는 null
+   */
+  private record Chunk(long affected, Long nextId) {
+  }
+}
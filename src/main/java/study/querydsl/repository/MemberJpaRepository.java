@@ -7,28 +7,42 @@ import static study.querydsl.entity.QTeam.team;
 
 import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.Predicate;
-import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.persistence.EntityManager;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.QTeam;
+import study.querydsl.repository.index.MemberSearchIndexManager;
 
 @Repository
+@Transactional(readOnly = true) //조회는 replica 로 (DataSourceRoutingConfig)
 public class MemberJpaRepository {
+  private static final int STREAM_FETCH_SIZE = 500; //스트리밍 조회시 JDBC 드라이버가 한번에 가져오는 row 수
   private final EntityManager em; //순수 jpa에 접근할때는 entityManager 필요
   private final JPAQueryFactory queryFactory;
+  private final MemberSearchQueryTemplates searchQueryTemplates;
+  private final ObjectProvider<MemberSearchIndexManager> searchIndex;
 
 
-  public MemberJpaRepository(EntityManager em) { //이 방식 추천
+  public MemberJpaRepository(EntityManager em, MemberSearchQueryTemplates searchQueryTemplates,
+      ObjectProvider<MemberSearchIndexManager> searchIndex) { //이 방식 추천
     this.em = em;
     this.queryFactory = new JPAQueryFactory(em); //Querydsl쓰려면 파라미터로 EntityManager 필요
+    this.searchQueryTemplates = searchQueryTemplates;
+    this.searchIndex = searchIndex;
   }
 
   /*  // JPAQueryFactory를 @Bean으로 등록했을 경우 바로 인젝션받을수 있다.
@@ -37,6 +51,7 @@ public class MemberJpaRepository {
       this.queryFactory = queryFactory;
     }
   */
+  @Transactional
   public void save(Member member){
     em.persist(member);
   }
@@ -60,6 +75,7 @@ public class MemberJpaRepository {
   public List<Member> findByUserName(String username){
     return em.createQuery("select m from Member m where m.username = :username", Member.class)
         .setParameter("username", username)
+        .setHint(HibernateHints.HINT_CACHEABLE, true)
         .getResultList();
   }
 
@@ -70,23 +86,25 @@ public class MemberJpaRepository {
         .fetch();
   }
 
+  //같은 조건 조합(shape)이면 값과 상관없이 항상 같은 JPQL 이 만들어지도록 정규화한다. (Hibernate 쿼리 플랜 캐시 재사용)
+  //조건은 항상 같은 순서로 붙이고, 값은 모두 파라미터로 바인딩되며 join 종류도 shape 으로만 정한다.
   public List<MemberTeamDto> searchByBuilder(MemberSearchCondition condition){
+    MemberSearchCondition normalized = condition.normalize(); //(null, "", " ") -> null
     BooleanBuilder builder = new BooleanBuilder();
-    //if(null, "")형태로도 많이 넘어온다. 그래서 이것을 방지하기 위해 StringUtils.hasText 사용
-    if(hasText(condition.getUsername())){
-      builder.and(member.username.eq(condition.getUsername()));
+    if(normalized.getUsername() != null){
+      builder.and(member.username.eq(normalized.getUsername()));
     }
-    if(hasText(condition.getTeamName())){
-      builder.and(team.name.eq(condition.getTeamName()));
+    if(normalized.getTeamName() != null){
+      builder.and(team.name.eq(normalized.getTeamName()));
     }
-    if(condition.getAgeGoe() != null){
-      builder.and(member.age.goe(condition.getAgeGoe()));
+    if(normalized.getAgeGoe() != null){
+      builder.and(member.age.goe(normalized.getAgeGoe()));
     }
-    if(condition.getAgeLoe() != null){
-      builder.and(member.age.loe(condition.getAgeLoe()));
+    if(normalized.getAgeLoe() != null){
+      builder.and(member.age.loe(normalized.getAgeLoe()));
     }
 
-    return queryFactory
+    JPAQuery<MemberTeamDto> query = queryFactory
         .select(new QMemberTeamDto(
             //member.id.as("memberId"),
             member.id,
@@ -95,47 +113,47 @@ public class MemberJpaRepository {
             team.id,
             team.name
         ))
-        .from(member)
-        .leftJoin(member.team, team)
+        .from(member);
+    if (normalized.getTeamName() != null) {
+      query.join(member.team, team); //team.name 조건이 있으면 inner join (MemberSearchQueryTemplates 와 같음)
+    } else {
+      query.leftJoin(member.team, team);
+    }
+    return query
         .where(builder)
         .fetch();
 
   }
 
+  //조건 조합별로 미리 만들어둔 JPQL에 값만 바인딩. (Querydsl 직렬화, Hibernate 파싱 생략)
+  //인메모리 인덱스를 켜두었으면 DB 대신 인덱스에서 찾는다. (커밋된 데이터만 보인다)
   public List<MemberTeamDto> search(MemberSearchCondition condition){
-    return  queryFactory
-        .select(new QMemberTeamDto(
-            member.id,
-            member.username,
-            member.age,
-            team.id,
-            team.name))
-        .from(member)
-        .leftJoin(member.team, team)
-        .where(
-            usernameEq(condition.getUsername()),
-            teamNameEq(condition.getTeamName()),
-            ageGoe(condition.getAgeGoe()),
-            ageLoe(condition.getAgeLoe())
-        )
-        .fetch();
-  }
-
-  private BooleanExpression usernameEq(String username) {
-    return hasText(username) ? member.username.eq(username) : null;
-    //hasText(username) 참이면 member.username.eq(username) 반환
-    // 아니면 null 반환
-  }
-
-  private BooleanExpression teamNameEq(String teamName) {
-    return hasText(teamName) ? team.name.eq(teamName) : null;
+    MemberSearchIndexManager index = searchIndex.getIfAvailable();
+    if (index != null && index.isReady()) {
+      return index.search(condition);
+    }
+    return searchQueryTemplates.createQuery(em, condition)
+        .getResultList();
   }
 
-  private BooleanExpression ageGoe(Integer ageGoe) {
-    return ageGoe != null ? member.age.goe(ageGoe) : null;
+  /**
+   * 검색 결과를 List로 모으지 않고 forward-only 커서로 한 건씩 넘겨준다. 결과 건수와 상관없이 메모리 사용량이 일정하다.
+   * DTO 프로젝션이라 영속성 컨텍스트에 엔티티가 쌓이지 않으므로 중간에 em.clear()는 필요 없다.
+   * 커서가 열려 있는 동안 커넥션을 잡고 있어야 하므로 트랜잭션 안에서 끝까지 소비한다.
+   */
+  @Transactional(readOnly = true)
+  public void searchForEach(MemberSearchCondition condition, Consumer<MemberTeamDto> action){
+    try (Stream<MemberTeamDto> stream = searchStream(condition)) {
+      stream.forEach(action);
+    }
   }
 
-  private BooleanExpression ageLoe(Integer ageLoe) {
-    return ageLoe != null ? member.age.loe(ageLoe) : null;
+  //반환된 Stream은 트랜잭션 안에서 사용하고 반드시 close 해야함. (메서드가 끝나면서 트랜잭션이 끝나지 않도록 호출한 쪽 트랜잭션 필수)
+  @Transactional(propagation = Propagation.MANDATORY)
+  public Stream<MemberTeamDto> searchStream(MemberSearchCondition condition){
+    return searchQueryTemplates.createQuery(em, condition)
+        .setHint(HibernateHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+        .setHint(HibernateHints.HINT_READ_ONLY, true)
+        .getResultStream();
   }
 }
@@ -0,0 +1,146 @@
+package study.querydsl.repository;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.dto.MemberSearchCondition;
+
+/**
+ * /v2, /v3 member 페이지 결과 캐시. (정규화한 검색 조건 + offset + size + sort) 가 key 다.
+ *
+ * member/team 이 바뀌면 커밋된 뒤에 version 을 올리고 전부 비운다. (MemberPageCacheListener, MemberRangeChangedEvent)
+ * 페이지를 읽기 시작할 때의 version 을 같이 저장해서, 읽는 도중에 변경이 커밋됐으면 그 결과는 캐시에 남기지 않는다.
+ * 크기는 max-size 를 넘으면 가장 오래 안 쓴 것부터(LRU), 시간은 ttl 로 제한한다. ttl 이 0 이면 캐시하지 않는다.
+ *
+ * ETag 는 (기동 시점, version, ttl 구간, key) 로 만들어서 DB 를 보지 않고도 "바뀌지 않았음(304)" 을 판단할 수 있다.
+ * JPA 를 거치지 않은 변경을 놓치더라도 ttl 이 지나면 ETag 가 바뀐다.
+ */
+@Component
+public class MemberPageCache {
+
+  private final long ttlNanos;
+  private final int maxSize;
+  private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+  private final AtomicLong version = new AtomicLong();
+  private final Map<Key, Entry> entries;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  public MemberPageCache(@Value("${querydsl.page-cache.ttl:10s}") Duration ttl,
+      @Value("${querydsl.page-cache.max-size:1000}") int maxSize) {
+    this.ttlNanos = ttl.toNanos();
+    this.maxSize = maxSize;
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+        return size() > MemberPageCache.this.maxSize;
+      }
+    };
+  }
+
+  public Key key(String name, MemberSearchCondition condition, Pageable pageable) {
+    return new Key(name, condition.normalize(), pageable.getOffset(), pageable.getPageSize(), pageable.getSort());
+  }
+
+  public String etag(Key key) {
+    long bucket = ttlNanos <= 0 ? System.nanoTime() : System.nanoTime() / ttlNanos;
+    return "\"" + epoch + "-" + version.get() + "-" + Long.toString(bucket, 36)
+        + "-" + Integer.toHexString(key.hashCode()) + "\"";
+  }
+
+  @SuppressWarnings("unchecked")
+  public <T> Page<T> get(Key key, Supplier<Page<T>> loader) {
+    if (ttlNanos <= 0) {
+      return loader.get();
+    }
+
+    long now = System.nanoTime();
+    long currentVersion = version.get();
+    Entry entry;
+    synchronized (entries) {
+      entry = entries.get(key);
+    }
+    if (entry != null && entry.version == currentVersion && entry.expiresAt - now > 0) {
+      hits.increment();
+      return (Page<T>) entry.page;
+    }
+
+    misses.increment();
+    Page<T> page = loader.get();
+    synchronized (entries) {
+      if (version.get() == currentVersion) { //읽는 동안 변경이 커밋됐으면 저장하지 않는다
+        entries.put(key, new Entry(page, currentVersion, now + ttlNanos));
+      }
+    }
+    return page;
+  }
+
+  public void invalidate() {
+    version.incrementAndGet();
+    synchronized (entries) {
+      entries.clear();
+    }
+  }
+
+  /**
+   * 트랜잭션 안이면 커밋된 뒤에 한번만, 밖이면 바로 비운다. 롤백되면 비우지 않는다.
+   */
+  public void invalidateAfterCommit() {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      invalidate();
+      return;
+    }
+    if (TransactionSynchronizationManager.hasResource(this)) {
+      return;
+    }
+    TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        invalidate();
+      }
+
+      @Override
+      public void afterCompletion(int status) {
+        TransactionSynchronizationManager.unbindResource(MemberPageCache.this);
+      }
+    });
+  }
+
+  //벌크 연산은 청크마다 별도 트랜잭션으로 이미 커밋된 뒤에 알려준다
+  @EventListener
+  public void onRangeChanged(MemberRangeChangedEvent event) {
+    invalidate();
+  }
+
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  public record Key(String name, MemberSearchCondition condition, long offset, int size, Sort sort) {
+  }
+
+  private record Entry(Page<?> page, long version, long expiresAt) {
+  }
+}
@@ -0,0 +1,24 @@
+package study.querydsl.repository;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * Member, Team 엔티티가 바뀌면 MemberPageCache 를 비운다. (커밋된 뒤)
+ */
+public class MemberPageCacheListener {
+
+  private final MemberPageCache pageCache;
+
+  public MemberPageCacheListener(MemberPageCache pageCache) {
+    this.pageCache = pageCache;
+  }
+
+  @PostPersist
+  @PostUpdate
+  @PostRemove
+  public void changed(Object entity) {
+    pageCache.invalidateAfterCommit();
+  }
+}
@@ -0,0 +1,20 @@
+package study.querydsl.repository;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 벌크 연산처럼 엔티티를 거치지 않고 member 가 바뀌었을 때 바뀐 id 범위를 알린다. (커밋된 뒤에 발행)
+ */
+@Getter
+@ToString
+public class MemberRangeChangedEvent {
+
+  private final long fromId;
+  private final long toId;
+
+  public MemberRangeChangedEvent(long fromId, long toId) {
+    this.fromId = fromId;
+    this.toId = toId;
+  }
+}
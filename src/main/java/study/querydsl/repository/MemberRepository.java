@@ -1,12 +1,16 @@
 package study.querydsl.repository;
 
+import jakarta.persistence.QueryHint;
 import java.util.List;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import study.querydsl.entity.Member;
 
 public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom {
 
   //메서드 이름으로 자동으로 JPQL 만듬.
   //select m from Member m where m.username = ?
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true")) //쿼리 캐시 사용
   List<Member> findByUsername(String username);
 }
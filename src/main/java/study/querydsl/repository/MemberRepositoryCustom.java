@@ -2,13 +2,27 @@ package study.querydsl.repository;
 
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import study.querydsl.dto.CursorSlice;
+import study.querydsl.dto.MemberCursor;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.TeamStatsDto;
 
 public interface MemberRepositoryCustom {
   List<MemberTeamDto> search(MemberSearchCondition condition);
+  //member_id 순으로 최대 limit 건. 샤딩을 켜면 샤드마다 order by + limit 을 붙여 보내고 합친다.
+  List<MemberTeamDto> search(MemberSearchCondition condition, int limit);
   Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
   Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
+  CursorSlice<MemberTeamDto> searchSlice(MemberSearchCondition condition, MemberCursor cursor, int size);
+  List<TeamStatsDto> searchTeamSummary(MemberSearchCondition condition);
+
+  //asyncQueryExecutor 에서 작업마다 별도의 EntityManager 로 실행한다. (AsyncQueries)
+  CompletableFuture<List<MemberTeamDto>> searchAsync(MemberSearchCondition condition);
+  CompletableFuture<Page<MemberTeamDto>> searchPageSimpleAsync(MemberSearchCondition condition, Pageable pageable);
+  CompletableFuture<Page<MemberTeamDto>> searchPageComplexAsync(MemberSearchCondition condition, Pageable pageable);
+  CompletableFuture<List<TeamStatsDto>> searchTeamSummaryAsync(MemberSearchCondition condition);
 }
@@ -4,76 +4,96 @@ import static org.springframework.util.StringUtils.hasText;
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
 
-import com.querydsl.core.QueryResults;
+import com.querydsl.core.types.Expression;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.persistence.EntityManager;
 
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.Assert;
+import study.querydsl.dto.CursorSlice;
+import study.querydsl.dto.MemberCursor;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
-import study.querydsl.entity.Member;
-
+import study.querydsl.dto.TeamStatsDto;
+import study.querydsl.monitoring.QueryMetrics;
+import study.querydsl.repository.support.AsyncQueries;
+import study.querydsl.repository.support.CountCache;
+import study.querydsl.repository.shard.MemberShardSearch;
+import study.querydsl.repository.support.CountQuery;
+import study.querydsl.repository.support.JoinPlanner;
+
+@Transactional(readOnly = true) //조회 전용이므로 replica 로 (DataSourceRoutingConfig)
 public class MemberRepositoryImpl implements MemberRepositoryCustom{
 
+  private final EntityManager em;
   private final JPAQueryFactory queryFactory;
-
-  public MemberRepositoryImpl(EntityManager em) {
-    this.queryFactory = new JPAQueryFactory(em);
+  private final CountCache countCache;
+  private final MemberSearchQueryTemplates searchQueryTemplates;
+  private final ObjectProvider<MemberShardSearch> shardSearch;
+  private final QueryMetrics queryMetrics;
+  private final AsyncQueries asyncQueries;
+
+  public MemberRepositoryImpl(EntityManager em, JPAQueryFactory queryFactory, CountCache countCache,
+      MemberSearchQueryTemplates searchQueryTemplates, ObjectProvider<MemberShardSearch> shardSearch,
+      QueryMetrics queryMetrics, AsyncQueries asyncQueries) {
+    this.em = em;
+    this.queryFactory = queryFactory; //QuerydslConfig 의 계측용 JPAQueryFactory
+    this.countCache = countCache;
+    this.searchQueryTemplates = searchQueryTemplates;
+    this.shardSearch = shardSearch;
+    this.queryMetrics = queryMetrics;
+    this.asyncQueries = asyncQueries;
   }
 
   @Override
   public List<MemberTeamDto> search(MemberSearchCondition condition){
-    return  queryFactory
-        .select(new QMemberTeamDto(
-            member.id,
-            member.username,
-            member.age,
-            team.id,
-            team.name))
-        .from(member)
-        .leftJoin(member.team, team)
-        .where(
-            usernameEq(condition.getUsername()),
-            teamNameEq(condition.getTeamName()),
-            ageGoe(condition.getAgeGoe()),
-            ageLoe(condition.getAgeLoe())
-        )
+    MemberShardSearch shards = shardSearch.getIfAvailable();
+    if (shards != null) {
+      return shards.search(condition); //샤딩을 켜면 search 만 샤드(이관된 읽기 전용 사본)를 읽는다
+    }
+    //Querydsl 이 아닌 JPQL 템플릿이므로 직접 기록
+    return queryMetrics.record("MemberRepositoryImpl.search", MemberSearchShape.of(condition).toString(),
+        () -> searchQueryTemplates.createQuery(em, condition).getResultList(), List::size);
+  }
+
+  @Override
+  public List<MemberTeamDto> search(MemberSearchCondition condition, int limit) {
+    Assert.isTrue(limit > 0, "Limit must be greater than zero!");
+    MemberShardSearch shards = shardSearch.getIfAvailable();
+    if (shards != null) {
+      return shards.search(condition, limit);
+    }
+    return plan(memberTeamDto(), condition)
+        .orderBy(member.id.asc())
+        .build()
+        .query()
+        .limit(limit)
         .fetch();
   }
 
   @Override
   public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
-     QueryResults<MemberTeamDto> results = queryFactory
-        .select(new QMemberTeamDto(
-            member.id,
-            member.username,
-            member.age,
-            team.id,
-            team.name))
-        .from(member)
-        .leftJoin(member.team, team)
-        .where(
-            usernameEq(condition.getUsername()),
-            teamNameEq(condition.getTeamName()),
-            ageGoe(condition.getAgeGoe()),
-            ageLoe(condition.getAgeLoe())
-        )
+    JPAQuery<MemberTeamDto> query = contentQuery(condition);
+
+    //fetchResults()는 deprecated. content 쿼리에서 count 쿼리를 만들어서 따로 실행한다.
+    CountQuery countQuery = CountQuery.derive(query);
+
+    List<MemberTeamDto> content = query
         .offset(pageable.getOffset())   //몇번부터 시작
         .limit(pageable.getPageSize())  //몇개를 가져올지
-        .fetchResults();
-
-    List<MemberTeamDto> content = results.getResults();
-    long total = results.getTotal();
+        .fetch();
 
-    return new PageImpl<>(content, pageable, total);
+    return PageableExecutionUtils.getPage(content, pageable, () -> countQuery.fetch(em));
   }
 
   //totalCount를 분리해서 따로 넘겨주는 코드.
@@ -81,28 +101,90 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
   public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
 
     //Contents 만을 위한 쿼리
-    List<MemberTeamDto> content = queryFactory
-        .select(new QMemberTeamDto(
-            member.id,
-            member.username,
-            member.age,
-            team.id,
-            team.name))
+    List<MemberTeamDto> content = contentQuery(condition)
+        .offset(pageable.getOffset())   //몇번부터 시작
+        .limit(pageable.getPageSize())  //몇개를 가져올지
+        .fetch();
+
+    return PageableExecutionUtils.getPage(content, pageable,
+        () -> countCache.get("member", condition.normalize(), countQuery(condition)::fetchOne));
+    //return new PageImpl<>(content, pageable, total);
+
+  }
+
+  @Override
+  public List<TeamStatsDto> searchTeamSummary(MemberSearchCondition condition) {
+    return queryFactory
+        .select(team.id, team.name, member.count(), member.age.sum().longValue(), member.age.min(), member.age.max())
         .from(member)
-        .leftJoin(member.team, team)
+        .join(member.team, team)  //팀별 집계이므로 팀 없는 member 는 빠진다
         .where(
             usernameEq(condition.getUsername()),
             teamNameEq(condition.getTeamName()),
             ageGoe(condition.getAgeGoe()),
             ageLoe(condition.getAgeLoe())
         )
-        .offset(pageable.getOffset())   //몇번부터 시작
-        .limit(pageable.getPageSize())  //몇개를 가져올지
-        .fetch();
+        .groupBy(team.id, team.name)
+        .orderBy(team.id.asc())
+        .fetch()
+        .stream()
+        .map(tuple -> new TeamStatsDto(tuple.get(team.id), tuple.get(team.name), tuple.get(2, Long.class),
+            tuple.get(3, Long.class), tuple.get(4, Integer.class), tuple.get(5, Integer.class)))
+        .toList();
+  }
+
+  @Override
+  public CompletableFuture<List<MemberTeamDto>> searchAsync(MemberSearchCondition condition) {
+    return asyncQueries.supply(() -> search(condition));
+  }
+
+  //content 와 count 를 각각 다른 커넥션에서 동시에 실행한다. count 가 필요 없는 마지막 페이지에서도 count 는 이미 실행된다.
+  @Override
+  public CompletableFuture<Page<MemberTeamDto>> searchPageSimpleAsync(MemberSearchCondition condition,
+      Pageable pageable) {
+    CompletableFuture<List<MemberTeamDto>> content = asyncQueries.supply(() -> contentQuery(condition)
+        .offset(pageable.getOffset())
+        .limit(pageable.getPageSize())
+        .fetch());
+    CompletableFuture<Long> total = asyncQueries.supply(() -> CountQuery.derive(contentQuery(condition)).fetch(em));
+    return content.thenCombine(total, (rows, count) -> PageableExecutionUtils.getPage(rows, pageable, () -> count));
+  }
+
+  @Override
+  public CompletableFuture<Page<MemberTeamDto>> searchPageComplexAsync(MemberSearchCondition condition,
+      Pageable pageable) {
+    CompletableFuture<List<MemberTeamDto>> content = asyncQueries.supply(() -> contentQuery(condition)
+        .offset(pageable.getOffset())
+        .limit(pageable.getPageSize())
+        .fetch());
+    CompletableFuture<Long> total = asyncQueries.supply(
+        () -> countCache.get("member", condition.normalize(), countQuery(condition)::fetchOne));
+    return content.thenCombine(total, (rows, count) -> PageableExecutionUtils.getPage(rows, pageable, () -> count));
+  }
 
-    //Total Count를 위한 쿼리
-    JPAQuery<Member> countQuery = queryFactory
-        .select(member)
+  @Override
+  public CompletableFuture<List<TeamStatsDto>> searchTeamSummaryAsync(MemberSearchCondition condition) {
+    return asyncQueries.supply(() -> searchTeamSummary(condition));
+  }
+
+  //teamName 조건이 있으면 team 은 inner join (JoinPlanner)
+  private JPAQuery<MemberTeamDto> contentQuery(MemberSearchCondition condition) {
+    return plan(memberTeamDto(), condition)
+        .build()
+        .query();
+  }
+
+  //Total Count를 위한 쿼리
+  //엔티티를 다 가져와서 size()를 세는 대신 count만 조회하고, team 조건이 없으면 join도 하지 않는다. (JoinPlanner)
+  private JPAQuery<Long> countQuery(MemberSearchCondition condition) {
+    return plan(member.count(), condition)
+        .build()
+        .query();
+  }
+
+  //검색 조건 + 필요할 때만 붙는 team join. 쓰지 않는 join 은 빠지고 team.id 는 FK 로 바뀐다
+  private <T> JoinPlanner<T> plan(Expression<T> projection, MemberSearchCondition condition) {
+    return new JoinPlanner<>(queryFactory, em.getMetamodel(), projection)
         .from(member)
         .leftJoin(member.team, team)
         .where(
@@ -111,12 +193,45 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
             ageGoe(condition.getAgeGoe()),
             ageLoe(condition.getAgeLoe())
         );
+  }
 
-    return PageableExecutionUtils.getPage(content, pageable, () -> countQuery.fetch().size());
-    //return new PageImpl<>(content, pageable, total);
+  private static QMemberTeamDto memberTeamDto() {
+    return new QMemberTeamDto(
+        member.id,
+        member.username,
+        member.age,
+        team.id,
+        team.name);
+  }
 
+  //offset 대신 마지막 member.id 이후부터 seek 하는 keyset 페이징. 몇번째 페이지든 인덱스로 바로 찾아가므로 비용이 같다.
+  @Override
+  public CursorSlice<MemberTeamDto> searchSlice(MemberSearchCondition condition, MemberCursor cursor, int size) {
+    Assert.isTrue(size > 0, "Slice size must be greater than zero!");
+
+    List<MemberTeamDto> content = plan(memberTeamDto(), condition)
+        .where(memberIdGt(cursor))
+        .orderBy(member.id.asc())
+        .paged()
+        .build()
+        .query()
+        .limit(size + 1)  //한건 더 조회해서 다음 페이지가 있는지 확인
+        .fetch();
+
+    boolean hasNext = content.size() > size;
+    if (hasNext) {
+      content = content.subList(0, size);
+    }
+    String nextCursor = hasNext
+        ? MemberCursor.after(content.get(content.size() - 1).getMemberId()).encode()
+        : null;
+
+    return new CursorSlice<>(content, nextCursor, hasNext);
   }
 
+  private BooleanExpression memberIdGt(MemberCursor cursor) {
+    return cursor == null || cursor.isFirst() ? null : member.id.gt(cursor.getLastMemberId());
+  }
   private BooleanExpression usernameEq(String username) {
     return hasText(username) ? member.username.eq(username) : null;
   }
@@ -0,0 +1,110 @@
+package study.querydsl.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.MemberTeamRow;
+
+/**
+ * search(MemberSearchCondition) 의 읽기 전용 JDBC 버전.
+ *
+ * JPQL 템플릿과 같은 방식으로 조건 조합(shape)마다 SQL 을 한번만 만들어두고(MemberSearchSql), ResultSet 컬럼을 MemberTeamDto 에 바로 담는다.
+ * Hibernate 의 row 단위 Object[] / 튜플 변환, 리플렉션 생성자 호출을 거치지 않는다.
+ * 영속성 컨텍스트를 거치지 않으므로 아직 flush 되지 않은 변경은 보이지 않는다.
+ */
+@Repository
+@Transactional(readOnly = true)
+public class MemberSearchJdbcRepository {
+
+  private static final int STREAM_FETCH_SIZE = 500;
+  private static final int IN_CHUNK_SIZE = 1000;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public MemberSearchJdbcRepository(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  public List<MemberTeamDto> search(MemberSearchCondition condition) {
+    MemberSearchShape shape = MemberSearchShape.of(condition);
+    return jdbcTemplate.query(MemberSearchSql.of(shape), ps -> MemberSearchSql.bind(ps, shape, condition),
+        MemberSearchSql.DTO_MAPPER);
+  }
+
+  /**
+   * 결과를 모으지 않고 하나의 MemberTeamRow 를 재사용해서 넘겨준다. row 당 DTO 도 만들지 않는다.
+   */
+  public void forEach(MemberSearchCondition condition, Consumer<MemberTeamRow> action) {
+    MemberSearchShape shape = MemberSearchShape.of(condition);
+    forEach(MemberSearchSql.of(shape), ps -> MemberSearchSql.bind(ps, shape, condition), action);
+  }
+
+  /**
+   * member_id 가 fromId ~ toId 인 member 만 읽는다. (변경된 범위를 다시 읽을 때 사용)
+   */
+  public void forEachInRange(long fromId, long toId, Consumer<MemberTeamRow> action) {
+    forEach(MemberSearchSql.SELECT + " where m.member_id between ? and ?", ps -> {
+      ps.setLong(1, fromId);
+      ps.setLong(2, toId);
+    }, action);
+  }
+
+  /**
+   * 주어진 id 의 member 만 읽는다. in 절이 너무 길어지지 않도록 IN_CHUNK_SIZE 개씩 나눠서 조회한다.
+   */
+  public void forEachIn(Collection<Long> ids, Consumer<MemberTeamRow> action) {
+    List<Long> idList = List.copyOf(ids);
+    for (int from = 0; from < idList.size(); from += IN_CHUNK_SIZE) {
+      List<Long> chunk = idList.subList(from, Math.min(from + IN_CHUNK_SIZE, idList.size()));
+      String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+      forEach(MemberSearchSql.SELECT + " where m.member_id in (" + placeholders + ")", ps -> {
+        for (int i = 0; i < chunk.size(); i++) {
+          ps.setLong(i + 1, chunk.get(i));
+        }
+      }, action);
+    }
+  }
+
+  /**
+   * team id 별 이름. 없는 team 은 빠진다.
+   */
+  public Map<Long, String> findTeamNames(Collection<Long> teamIds) {
+    List<Long> idList = List.copyOf(teamIds);
+    String placeholders = String.join(", ", Collections.nCopies(idList.size(), "?"));
+    Map<Long, String> names = new HashMap<>();
+    jdbcTemplate.query("select team_id, name from team where team_id in (" + placeholders + ")", ps -> {
+      for (int i = 0; i < idList.size(); i++) {
+        ps.setLong(i + 1, idList.get(i));
+      }
+    }, (ResultSet rs) -> {
+      names.put(rs.getLong(1), rs.getString(2));
+    });
+    return names;
+  }
+
+  private void forEach(String sql, PreparedStatementSetter setter, Consumer<MemberTeamRow> action) {
+    MemberTeamRow row = new MemberTeamRow();
+    jdbcTemplate.query(con -> {
+      PreparedStatement ps = con.prepareStatement(sql);
+      ps.setFetchSize(STREAM_FETCH_SIZE);
+      setter.setValues(ps);
+      return ps;
+    }, (ResultSet rs) -> {
+      long teamId = rs.getLong(4);
+      boolean hasTeam = !rs.wasNull();
+      row.set(rs.getLong(1), rs.getString(2), rs.getInt(3), teamId, hasTeam, rs.getString(5));
+      action.accept(row);
+    });
+  }
+}
@@ -0,0 +1,96 @@
+package study.querydsl.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+/**
+ * search(MemberSearchCondition) 전용 JPQL 템플릿 캐시.
+ *
+ * Querydsl로 매번 식 트리를 만들고 JPQL로 직렬화하는 대신, 조건 조합(16가지)마다 파라미터 바인딩용 JPQL을
+ * 한번만 만들어두고 값만 바인딩한다. JPQL 문자열이 항상 같으므로 Hibernate의 쿼리 플랜 캐시도 그대로 재사용된다.
+ */
+@Component
+public class MemberSearchQueryTemplates {
+
+  private final AtomicReferenceArray<String> templates =
+      new AtomicReferenceArray<>(MemberSearchShape.COMBINATIONS);
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  public TypedQuery<MemberTeamDto> createQuery(EntityManager em, MemberSearchCondition condition) {
+    MemberSearchShape shape = MemberSearchShape.of(condition);
+    TypedQuery<MemberTeamDto> query = em.createQuery(template(shape), MemberTeamDto.class);
+
+    if (shape.has(MemberSearchShape.USERNAME)) {
+      query.setParameter("username", condition.getUsername());
+    }
+    if (shape.has(MemberSearchShape.TEAM_NAME)) {
+      query.setParameter("teamName", condition.getTeamName());
+    }
+    if (shape.has(MemberSearchShape.AGE_GOE)) {
+      query.setParameter("ageGoe", condition.getAgeGoe());
+    }
+    if (shape.has(MemberSearchShape.AGE_LOE)) {
+      query.setParameter("ageLoe", condition.getAgeLoe());
+    }
+    return query;
+  }
+
+  String template(MemberSearchShape shape) {
+    String jpql = templates.get(shape.mask());
+    if (jpql != null) {
+      hits.increment();
+      return jpql;
+    }
+    misses.increment();
+    jpql = compile(shape);
+    templates.compareAndSet(shape.mask(), null, jpql);
+    return jpql;
+  }
+
+  private static String compile(MemberSearchShape shape) {
+    StringBuilder jpql = new StringBuilder()
+        .append("select new ").append(MemberTeamDto.class.getName())
+        .append("(m.id, m.username, m.age, t.id, t.name)")
+        .append(" from Member m")
+        //t.name 조건이 있으면 팀 없는 member 는 어차피 걸러지므로 inner join. team 부터 찾고 idx_member_team_age 로 member 를 좁힐 수 있다.
+        .append(shape.has(MemberSearchShape.TEAM_NAME) ? " join m.team t" : " left join m.team t");
+
+    String prefix = " where ";
+    if (shape.has(MemberSearchShape.USERNAME)) {
+      jpql.append(prefix).append("m.username = :username");
+      prefix = " and ";
+    }
+    if (shape.has(MemberSearchShape.TEAM_NAME)) {
+      jpql.append(prefix).append("t.name = :teamName");
+      prefix = " and ";
+    }
+    if (shape.has(MemberSearchShape.AGE_GOE)) {
+      jpql.append(prefix).append("m.age >= :ageGoe");
+      prefix = " and ";
+    }
+    if (shape.has(MemberSearchShape.AGE_LOE)) {
+      jpql.append(prefix).append("m.age <= :ageLoe");
+    }
+    return jpql.toString();
+  }
+
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  public double getHitRatio() {
+    long hit = getHitCount();
+    long total = hit + getMissCount();
+    return total == 0 ? 0.0 : (double) hit / total;
+  }
+}
@@ -0,0 +1,79 @@
+package study.querydsl.repository;
+
+import static org.springframework.util.StringUtils.hasText;
+
+import java.util.StringJoiner;
+import study.querydsl.dto.MemberSearchCondition;
+
+/**
+ * MemberSearchCondition 에서 어떤 조건이 들어왔는지(값은 무시)만 나타낸다.
+ * 조건이 4개이므로 조합은 16가지뿐이고, 같은 shape 이면 같은 쿼리 모양을 재사용할 수 있다.
+ */
+public final class MemberSearchShape {
+
+  public static final int USERNAME = 1;
+  public static final int TEAM_NAME = 1 << 1;
+  public static final int AGE_GOE = 1 << 2;
+  public static final int AGE_LOE = 1 << 3;
+  public static final int COMBINATIONS = 1 << 4;
+
+  private static final MemberSearchShape[] SHAPES = new MemberSearchShape[COMBINATIONS];
+
+  static {
+    for (int mask = 0; mask < COMBINATIONS; mask++) {
+      SHAPES[mask] = new MemberSearchShape(mask);
+    }
+  }
+
+  private final int mask;
+
+  private MemberSearchShape(int mask) {
+    this.mask = mask;
+  }
+
+  public static MemberSearchShape of(MemberSearchCondition condition) {
+    int mask = 0;
+    if (hasText(condition.getUsername())) {
+      mask |= USERNAME;
+    }
+    if (hasText(condition.getTeamName())) {
+      mask |= TEAM_NAME;
+    }
+    if (condition.getAgeGoe() != null) {
+      mask |= AGE_GOE;
+    }
+    if (condition.getAgeLoe() != null) {
+      mask |= AGE_LOE;
+    }
+    return SHAPES[mask];
+  }
+
+  public int mask() {
+    return mask;
+  }
+
+  public boolean has(int flag) {
+    return (mask & flag) != 0;
+  }
+
+  @Override
+  public String toString() {
+    if (mask == 0) {
+      return "none";
+    }
+    StringJoiner joiner = new StringJoiner("+");
+    if (has(USERNAME)) {
+      joiner.add("username");
+    }
+    if (has(TEAM_NAME)) {
+      joiner.add("teamName");
+    }
+    if (has(AGE_GOE)) {
+      joiner.add("ageGoe");
+    }
+    if (has(AGE_LOE)) {
+      joiner.add("ageLoe");
+    }
+    return joiner.toString();
+  }
+}
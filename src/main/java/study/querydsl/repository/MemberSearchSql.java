@@ -0,0 +1,86 @@
+package study.querydsl.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.springframework.jdbc.core.RowMapper;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+/**
+ * search(MemberSearchCondition) 용 SQL. 조건 조합(shape)마다 한번만 만들어두고 ? 에 값만 바인딩한다.
+ * MemberSearchJdbcRepository 와 샤드 조회(MemberShardSearch)에서 같이 사용한다.
+ */
+public final class MemberSearchSql {
+
+  public static final String SELECT = "select m.member_id, m.username, m.age, t.team_id, t.name"
+      + " from member m left outer join team t on t.team_id = m.team_id";
+
+  //t.name 조건이 있을 때는 inner join (MemberSearchQueryTemplates 와 같은 이유)
+  private static final String SELECT_WITH_TEAM = "select m.member_id, m.username, m.age, t.team_id, t.name"
+      + " from member m inner join team t on t.team_id = m.team_id";
+
+  public static final RowMapper<MemberTeamDto> DTO_MAPPER = (rs, rowNum) -> {
+    long teamId = rs.getLong(4);
+    Long nullableTeamId = rs.wasNull() ? null : teamId; //wasNull 은 직전에 읽은 컬럼 기준
+    return new MemberTeamDto(rs.getLong(1), rs.getString(2), rs.getInt(3), nullableTeamId, rs.getString(5));
+  };
+
+  private static final AtomicReferenceArray<String> TEMPLATES =
+      new AtomicReferenceArray<>(MemberSearchShape.COMBINATIONS);
+
+  private MemberSearchSql() {
+  }
+
+  public static String of(MemberSearchShape shape) {
+    String sql = TEMPLATES.get(shape.mask());
+    if (sql == null) {
+      sql = compile(shape);
+      TEMPLATES.compareAndSet(shape.mask(), null, sql);
+    }
+    return sql;
+  }
+
+  /**
+   * shape 에 있는 조건 값을 순서대로 바인딩하고, 다음에 바인딩할 파라미터 위치를 돌려준다.
+   */
+  public static int bind(PreparedStatement ps, MemberSearchShape shape, MemberSearchCondition condition)
+      throws SQLException {
+    int index = 1;
+    if (shape.has(MemberSearchShape.USERNAME)) {
+      ps.setString(index++, condition.getUsername());
+    }
+    if (shape.has(MemberSearchShape.TEAM_NAME)) {
+      ps.setString(index++, condition.getTeamName());
+    }
+    if (shape.has(MemberSearchShape.AGE_GOE)) {
+      ps.setInt(index++, condition.getAgeGoe());
+    }
+    if (shape.has(MemberSearchShape.AGE_LOE)) {
+      ps.setInt(index++, condition.getAgeLoe());
+    }
+    return index;
+  }
+
+  private static String compile(MemberSearchShape shape) {
+    StringBuilder sql = new StringBuilder(shape.has(MemberSearchShape.TEAM_NAME) ? SELECT_WITH_TEAM : SELECT);
+
+    String prefix = " where ";
+    if (shape.has(MemberSearchShape.USERNAME)) {
+      sql.append(prefix).append("m.username = ?");
+      prefix = " and ";
+    }
+    if (shape.has(MemberSearchShape.TEAM_NAME)) {
+      sql.append(prefix).append("t.name = ?");
+      prefix = " and ";
+    }
+    if (shape.has(MemberSearchShape.AGE_GOE)) {
+      sql.append(prefix).append("m.age >= ?");
+      prefix = " and ";
+    }
+    if (shape.has(MemberSearchShape.AGE_LOE)) {
+      sql.append(prefix).append("m.age <= ?");
+    }
+    return sql.toString();
+  }
+}
@@ -5,22 +5,37 @@ import static study.querydsl.entity.QMember.*;
 import static study.querydsl.entity.QTeam.team;
 
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.JPAExpressions;
 import com.querydsl.jpa.impl.JPAQuery;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberDto;
 import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.QMemberDto;
+import study.querydsl.entity.AgeBucket;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.CountCache;
+import study.querydsl.repository.support.JoinPlan;
 import study.querydsl.repository.support.Querydsl4RepositorySupport;
 
 @Repository
+@Transactional(readOnly = true) //조회 전용이므로 replica 로 (DataSourceRoutingConfig)
 public class MemberTestRepository extends Querydsl4RepositorySupport {
 
-  public MemberTestRepository() {
+  private final CountCache countCache;
+
+  public MemberTestRepository(CountCache countCache) {
     super(Member.class);
+    this.countCache = countCache;
   }
 
   public List<Member> basicSelect(){
@@ -46,7 +61,20 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
 
     List<Member> content = getQuerydsl().applyPagination(pageable, query).fetch();
 
-    return PageableExecutionUtils.getPage(content, pageable, ()->query.fetch().size());
+    //count는 엔티티 없이 count만 조회. team 조건이 없으면 join도 생략
+    JPAQuery<Long> countQuery = select(member.count())
+        .from(member);
+    if (hasText(condition.getTeamName())) {
+      countQuery.leftJoin(member.team, team);
+    }
+    countQuery.where(usernameEq(condition.getUsername()),
+        teamNameEq(condition.getTeamName()),
+        ageGoe(condition.getAgeGoe()),
+        ageLoe(condition.getAgeLoe())
+    );
+
+    return PageableExecutionUtils.getPage(content, pageable,
+        () -> countCache.get("member", condition.normalize(), countQuery::fetchOne));
   }
 
   //위의 searchPageByApplyPage 와 완전히 동일.
@@ -83,6 +111,102 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
     );
   }
 
+  //applyPagination과 같지만 count 쿼리를 별도 커넥션에서 동시에 실행
+  public Page<Member> applyPaginationWithParallelCount(MemberSearchCondition condition, Pageable pageable){
+    return applyPaginationWithParallelCount(pageable, query ->
+        query.selectFrom(member)
+            .leftJoin(member.team,team)
+            .where(usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe())
+            )
+    );
+  }
+
+  //username, age 만 조회. team 은 teamName 조건이 있을 때만 (inner) join 된다.
+  public List<MemberDto> searchMemberDto(MemberSearchCondition condition){
+    return plan(new QMemberDto(member.username, member.age))
+        .from(member)
+        .leftJoin(member.team, team)
+        .where(usernameEq(condition.getUsername()),
+            teamNameEq(condition.getTeamName()),
+            ageGoe(condition.getAgeGoe()),
+            ageLoe(condition.getAgeLoe())
+        )
+        .build()
+        .fetch();
+  }
+
+  //member.team 까지 바로 쓰는 조회. team 은 fetch join
+  public List<Member> searchWithTeam(MemberSearchCondition condition){
+    return plan(member)
+        .from(member)
+        .leftJoin(member.team, team)
+        .where(usernameEq(condition.getUsername()),
+            teamNameEq(condition.getTeamName()),
+            ageGoe(condition.getAgeGoe()),
+            ageLoe(condition.getAgeLoe())
+        )
+        .fetch(member.team)
+        .build()
+        .fetch();
+  }
+
+  //team 페이지 + team.members. 컬렉션을 fetch join 하면 메모리에서 페이징하므로 members 는 batch fetch
+  public List<Team> findTeamsWithMembers(long offset, int limit){
+    JoinPlan<Team> plan = plan(team)
+        .from(team)
+        .orderBy(team.name.asc())
+        .fetch(team.members)
+        .paged()
+        .build();
+    plan.query().offset(offset).limit(limit);
+    return plan.fetch();
+  }
+
+  //나이가 가장 많은 회원. max 서브쿼리는 미리 한번 실행해서 값으로 비교 (SubQueryRewriter)
+  public List<Member> findOldestMembers(){
+    QMember memberSub = new QMember("memberSub");
+    return rewriteSubQueries(selectFrom(member)
+        .where(member.age.eq(
+            JPAExpressions.select(memberSub.age.max())
+                .from(memberSub)
+        )))
+        .fetch();
+  }
+
+  //나이가 평균 이상인 회원
+  public List<Member> findMembersAtLeastAverageAge(){
+    QMember memberSub = new QMember("memberSub");
+    return rewriteSubQueries(selectFrom(member)
+        .where(member.age.goe(
+            JPAExpressions.select(memberSub.age.avg())
+                .from(memberSub)
+        )))
+        .fetch();
+  }
+
+  //나이 구간(age_bucket)은 DB 가 계산해둔 컬럼이므로 CaseBuilder 대신 인덱스로 거르고 display_key 인덱스 순서로 정렬
+  public List<Member> findByAgeBucket(AgeBucket ageBucket){
+    return selectFrom(member)
+        .where(member.ageBucket.eq(ageBucket))
+        .orderBy(member.displayKey.asc())
+        .fetch();
+  }
+
+  //나이 구간별 회원 수. 구간 순서대로
+  public Map<AgeBucket, Long> countByAgeBucket(){
+    return getQueryFactory().select(member.ageBucket, member.count())
+        .from(member)
+        .groupBy(member.ageBucket)
+        .orderBy(member.ageBucket.asc())
+        .fetch()
+        .stream()
+        .collect(Collectors.toMap(tuple -> tuple.get(member.ageBucket), tuple -> tuple.get(member.count()),
+            (a, b) -> a, LinkedHashMap::new));
+  }
+
   private BooleanExpression usernameEq(String username) {
     return hasText(username) ? member.username.eq(username) : null;
   }
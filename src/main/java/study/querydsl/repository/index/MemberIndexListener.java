@@ -0,0 +1,32 @@
+package study.querydsl.repository.index;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+/**
+ * Member, Team 엔티티 변경을 MemberSearchIndexManager 에 알린다.
+ * Hibernate 가 스프링 빈 컨테이너로 만들어주므로 생성자 주입을 받을 수 있다. 인덱스를 쓰지 않으면 아무것도 하지 않는다.
+ */
+public class MemberIndexListener {
+
+  private final ObjectProvider<MemberSearchIndexManager> indexManager;
+
+  public MemberIndexListener(ObjectProvider<MemberSearchIndexManager> indexManager) {
+    this.indexManager = indexManager;
+  }
+
+  @PostPersist
+  @PostUpdate
+  @PostRemove
+  public void changed(Object entity) {
+    if (entity instanceof Member member) {
+      indexManager.ifAvailable(manager -> manager.memberChanged(member.getId()));
+    } else if (entity instanceof Team team) {
+      indexManager.ifAvailable(manager -> manager.teamChanged(team.getId()));
+    }
+  }
+}
@@ -0,0 +1,360 @@
+package study.querydsl.repository.index;
+
+import static org.springframework.util.StringUtils.hasText;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.MemberTeamRow;
+
+/**
+ * MemberSearchCondition 검색용 컬럼 기반 인메모리 인덱스.
+ *
+ * member 한 명을 객체로 두지 않고 컬럼마다 배열(ids, ages, usernames, teamCodes)로 들고 있는다.
+ * 팀 이름은 팀마다 번호(code)를 붙여 사전으로 관리하고, 검색은 int/long 배열만 훑으므로 조건 비교 중에는 객체를 만들지 않는다.
+ * username 조건은 username 순으로 정렬한 row 번호 배열에서 이진 탐색한다.
+ * 정렬은 처음 한번만 하고(sortUsernames) 그 뒤의 쓰기는 이진 탐색한 자리에 끼워 넣거나 빼서 정렬 상태를 유지한다.
+ * 삭제된 row 는 바로 당기지 않고 표시만 해두었다가 절반 이상이 지워지면 한번에 압축한다.
+ * 검색 결과는 조건에 맞는 row 만 바로 DTO 로 담으므로 검색마다 전체 크기의 배열을 만들지 않는다.
+ */
+public class MemberSearchIndex {
+
+  private static final int INITIAL_CAPACITY = 1024;
+  private static final int NO_TEAM = -1;
+  private static final Comparator<String> USERNAME_ORDER = Comparator.nullsFirst(Comparator.naturalOrder());
+
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+  //member 컬럼
+  private long[] ids = new long[INITIAL_CAPACITY];
+  private int[] ages = new int[INITIAL_CAPACITY];
+  private int[] teamCodes = new int[INITIAL_CAPACITY];
+  private String[] usernames = new String[INITIAL_CAPACITY];
+  private final BitSet removed = new BitSet();
+  private final Map<Long, Integer> rowById = new HashMap<>();
+  private int size;
+  private int removedCount;
+  private int[] usernameOrder; //null 이면 아직 정렬 전
+  private int orderSize;
+
+  //team 사전
+  private long[] teamIds = new long[16];
+  private String[] teamNames = new String[16];
+  private final Map<Long, Integer> codeByTeamId = new HashMap<>();
+  private int teamCount;
+
+  public void upsert(MemberTeamRow row) {
+    lock.writeLock().lock();
+    try {
+      int teamCode = row.getTeamId() == null ? NO_TEAM : teamCode(row.getTeamId(), row.getTeamName());
+      Integer position = rowById.get(row.getMemberId());
+      if (position == null) {
+        ensureCapacity(size + 1);
+        position = size++;
+        rowById.put(row.getMemberId(), position);
+        ids[position] = row.getMemberId();
+        usernames[position] = row.getUsername();
+        insertOrder(position);
+      } else if (!Objects.equals(usernames[position], row.getUsername())) {
+        removeOrder(position); //이전 username 기준으로 찾아서 빼고 새 자리에 넣는다
+        usernames[position] = row.getUsername();
+        insertOrder(position);
+      }
+      ages[position] = row.getAge();
+      teamCodes[position] = teamCode;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public void remove(long memberId) {
+    lock.writeLock().lock();
+    try {
+      Integer position = rowById.remove(memberId);
+      if (position == null) {
+        return;
+      }
+      removeOrder(position);
+      removed.set(position);
+      usernames[position] = null;
+      removedCount++;
+      if (removedCount > INITIAL_CAPACITY && removedCount * 2 > size) {
+        compact();
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * 팀 이름이 바뀌었으면 사전의 이름만 바꾼다. 팀이 지워졌으면(teamName == null) 어떤 팀 이름 조건에도 걸리지 않는다.
+   */
+  public void renameTeam(long teamId, String teamName) {
+    lock.writeLock().lock();
+    try {
+      Integer code = codeByTeamId.get(teamId);
+      if (code != null) {
+        teamNames[code] = teamName;
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * username 순서를 처음 한번 정렬한다. 다 읽어들인 뒤에 호출하면 읽는 동안 row 마다 끼워 넣는 비용이 없다.
+   */
+  public void sortUsernames() {
+    lock.readLock().lock();
+    try {
+      if (usernameOrder != null) {
+        return;
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+
+    lock.writeLock().lock();
+    try {
+      if (usernameOrder == null) {
+        usernameOrder = IntStream.range(0, size)
+            .filter(position -> !removed.get(position))
+            .boxed()
+            .sorted(Comparator.comparing(position -> usernames[position], USERNAME_ORDER))
+            .mapToInt(Integer::intValue)
+            .toArray();
+        orderSize = usernameOrder.length;
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * fromId ~ toId 범위에 있는 member id
+   */
+  public long[] idsInRange(long fromId, long toId) {
+    lock.readLock().lock();
+    try {
+      return IntStream.range(0, size)
+          .filter(position -> !removed.get(position))
+          .mapToLong(position -> ids[position])
+          .filter(id -> id >= fromId && id <= toId)
+          .toArray();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return size - removedCount;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public List<MemberTeamDto> search(MemberSearchCondition condition) {
+    boolean byUsername = hasText(condition.getUsername());
+    if (byUsername) {
+      sortUsernames(); //한번 정렬한 뒤로는 쓰기에서 정렬 상태를 유지하므로 다시 정렬하지 않는다
+    }
+    lock.readLock().lock();
+    try {
+      return search(condition, byUsername);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private List<MemberTeamDto> search(MemberSearchCondition condition, boolean byUsername) {
+    boolean[] teamMatch = null;
+    if (hasText(condition.getTeamName())) {
+      teamMatch = matchingTeams(condition.getTeamName());
+      if (teamMatch == null) {
+        return List.of();
+      }
+    }
+    int ageGoe = condition.getAgeGoe() == null ? Integer.MIN_VALUE : condition.getAgeGoe();
+    int ageLoe = condition.getAgeLoe() == null ? Integer.MAX_VALUE : condition.getAgeLoe();
+
+    List<MemberTeamDto> result = new ArrayList<>();
+    if (byUsername) {
+      for (int i = lowerBound(condition.getUsername()); i < orderSize; i++) {
+        int position = usernameOrder[i];
+        if (!condition.getUsername().equals(usernames[position])) {
+          break;
+        }
+        if (matches(position, teamMatch, ageGoe, ageLoe)) {
+          result.add(toDto(position));
+        }
+      }
+    } else {
+      for (int position = 0; position < size; position++) {
+        if (!removed.get(position) && matches(position, teamMatch, ageGoe, ageLoe)) {
+          result.add(toDto(position));
+        }
+      }
+    }
+    return result;
+  }
+
+  private boolean matches(int position, boolean[] teamMatch, int ageGoe, int ageLoe) {
+    int age = ages[position];
+    if (age < ageGoe || age > ageLoe) {
+      return false;
+    }
+    if (teamMatch == null) {
+      return true;
+    }
+    int teamCode = teamCodes[position];
+    return teamCode != NO_TEAM && teamMatch[teamCode];
+  }
+
+  /**
+   * 같은 이름의 팀이 여러 개일 수 있으므로 code 별 일치 여부를 돌려준다. 하나도 없으면 null
+   */
+  private boolean[] matchingTeams(String teamName) {
+    boolean[] match = new boolean[teamCount];
+    boolean any = false;
+    for (int code = 0; code < teamCount; code++) {
+      if (teamName.equals(teamNames[code])) {
+        match[code] = true;
+        any = true;
+      }
+    }
+    return any ? match : null;
+  }
+
+  private MemberTeamDto toDto(int position) {
+    int teamCode = teamCodes[position];
+    return new MemberTeamDto(ids[position], usernames[position], ages[position],
+        teamCode == NO_TEAM ? null : teamIds[teamCode],
+        teamCode == NO_TEAM ? null : teamNames[teamCode]);
+  }
+
+  private int teamCode(long teamId, String teamName) {
+    Integer code = codeByTeamId.get(teamId);
+    if (code == null) {
+      if (teamCount == teamIds.length) {
+        teamIds = Arrays.copyOf(teamIds, teamCount * 2);
+        teamNames = Arrays.copyOf(teamNames, teamCount * 2);
+      }
+      code = teamCount++;
+      codeByTeamId.put(teamId, code);
+      teamIds[code] = teamId;
+    }
+    teamNames[code] = teamName; //팀 이름이 바뀌었으면 최신 값으로
+    return code;
+  }
+
+  /**
+   * username 보다 작지 않은 첫 자리
+   */
+  private int lowerBound(String username) {
+    return bound(username, false);
+  }
+
+  /**
+   * username 보다 큰 첫 자리. 같은 username 끼리는 들어온 순서대로 둔다.
+   */
+  private int upperBound(String username) {
+    return bound(username, true);
+  }
+
+  private int bound(String username, boolean upper) {
+    int low = 0;
+    int high = orderSize;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      int compared = USERNAME_ORDER.compare(usernames[usernameOrder[mid]], username);
+      if (compared < 0 || (upper && compared == 0)) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * 정렬 전이면 sortUsernames 에서 한번에 정렬하므로 아무것도 하지 않는다.
+   */
+  private void insertOrder(int position) {
+    if (usernameOrder == null) {
+      return;
+    }
+    if (orderSize == usernameOrder.length) {
+      usernameOrder = Arrays.copyOf(usernameOrder, Math.max(INITIAL_CAPACITY, orderSize * 2));
+    }
+    int at = upperBound(usernames[position]);
+    System.arraycopy(usernameOrder, at, usernameOrder, at + 1, orderSize - at);
+    usernameOrder[at] = position;
+    orderSize++;
+  }
+
+  /**
+   * usernames[position] 이 바뀌기 전에 호출해야 한다.
+   */
+  private void removeOrder(int position) {
+    if (usernameOrder == null) {
+      return;
+    }
+    for (int at = lowerBound(usernames[position]); at < orderSize; at++) {
+      if (usernameOrder[at] == position) {
+        System.arraycopy(usernameOrder, at + 1, usernameOrder, at, orderSize - at - 1);
+        orderSize--;
+        return;
+      }
+    }
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity <= ids.length) {
+      return;
+    }
+    int newCapacity = Math.max(capacity, ids.length * 2);
+    ids = Arrays.copyOf(ids, newCapacity);
+    ages = Arrays.copyOf(ages, newCapacity);
+    teamCodes = Arrays.copyOf(teamCodes, newCapacity);
+    usernames = Arrays.copyOf(usernames, newCapacity);
+  }
+
+  /**
+   * 삭제 표시된 row 를 빼고 앞으로 당긴다.
+   */
+  private void compact() {
+    int[] moved = new int[size];
+    int target = 0;
+    for (int position = 0; position < size; position++) {
+      if (removed.get(position)) {
+        continue;
+      }
+      moved[position] = target;
+      ids[target] = ids[position];
+      ages[target] = ages[position];
+      teamCodes[target] = teamCodes[position];
+      usernames[target] = usernames[position];
+      rowById.put(ids[target], target);
+      target++;
+    }
+    Arrays.fill(usernames, target, size, null);
+    size = target;
+    removed.clear();
+    removedCount = 0;
+    //username 순서는 그대로이고 row 번호만 바뀐다
+    for (int i = 0; i < orderSize; i++) {
+      usernameOrder[i] = moved[usernameOrder[i]];
+    }
+  }
+}
@@ -0,0 +1,168 @@
+package study.querydsl.repository.index;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.config.ReadYourWrites;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberRangeChangedEvent;
+import study.querydsl.repository.MemberSearchJdbcRepository;
+
+/**
+ * MemberSearchIndex 를 띄우고 DB 변경을 따라가게 한다. querydsl.member-index.enabled=true 일 때만 등록된다.
+ *
+ * 1. 애플리케이션이 뜨면 member 전체를 읽어서 인덱스를 만든다. 다 만들어지기 전까지 검색은 DB 로 간다.
+ * 2. 엔티티 변경(MemberIndexListener)은 트랜잭션이 커밋된 뒤에 바뀐 id 만 DB 에서 다시 읽어 반영한다. 롤백되면 반영하지 않는다.
+ *    team 이 바뀌면 그 team 의 이름만 다시 읽어서 팀 사전을 고친다. (member row 는 다시 읽지 않음)
+ * 3. 벌크 연산은 MemberRangeChangedEvent 로 받은 id 범위를 다시 읽는다.
+ *
+ * 인덱스를 만드는 도중에 커밋된 변경은 빠질 수 있으므로 트래픽을 받기 전에 만드는 것을 전제로 한다.
+ * 방금 커밋된 값을 읽어야 하므로 replica 라우팅이 켜져 있어도 항상 primary 에서 읽는다. (ReadYourWrites)
+ * replica 에서 읽으면 복제 지연 때문에 예전 row 가 들어가고, 다음 변경이 올 때까지 고쳐지지 않는다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "querydsl.member-index.enabled", havingValue = "true")
+public class MemberSearchIndexManager {
+
+  private final MemberSearchJdbcRepository memberSearchJdbcRepository;
+  private volatile MemberSearchIndex index;
+
+  public MemberSearchIndexManager(MemberSearchJdbcRepository memberSearchJdbcRepository) {
+    this.memberSearchJdbcRepository = memberSearchJdbcRepository;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void load() {
+    MemberSearchIndex loaded = new MemberSearchIndex();
+    try (ReadYourWrites.Scope scope = ReadYourWrites.open()) {
+      memberSearchJdbcRepository.forEach(new MemberSearchCondition(), loaded::upsert);
+    }
+    loaded.sortUsernames(); //다 읽은 뒤에 한번만 정렬
+    index = loaded;
+    log.info("member search index loaded. size={}", loaded.size());
+  }
+
+  public boolean isReady() {
+    return index != null;
+  }
+
+  public List<MemberTeamDto> search(MemberSearchCondition condition) {
+    return index.search(condition);
+  }
+
+  /**
+   * 트랜잭션 안이면 커밋된 뒤에 한번에, 밖이면 바로 반영한다.
+   */
+  public void memberChanged(Long memberId) {
+    if (index == null || memberId == null) {
+      return;
+    }
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      refresh(Set.of(memberId));
+      return;
+    }
+    pending().memberIds.add(memberId);
+  }
+
+  /**
+   * 팀 이름이 바뀌면 팀 이름 조건이 예전 이름으로 걸리지 않도록 팀 사전을 고친다. memberChanged 와 같이 커밋된 뒤에 반영한다.
+   */
+  public void teamChanged(Long teamId) {
+    if (index == null || teamId == null) {
+      return;
+    }
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      refreshTeams(Set.of(teamId));
+      return;
+    }
+    pending().teamIds.add(teamId);
+  }
+
+  private PendingChanges pending() {
+    PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+    if (pending == null) {
+      PendingChanges changes = new PendingChanges();
+      TransactionSynchronizationManager.bindResource(this, changes);
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          if (!changes.teamIds.isEmpty()) {
+            refreshTeams(changes.teamIds);
+          }
+          if (!changes.memberIds.isEmpty()) {
+            refresh(changes.memberIds);
+          }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+          TransactionSynchronizationManager.unbindResource(MemberSearchIndexManager.this);
+        }
+      });
+      pending = changes;
+    }
+    return pending;
+  }
+
+  @EventListener
+  public void onRangeChanged(MemberRangeChangedEvent event) {
+    MemberSearchIndex current = index;
+    if (current == null) {
+      return;
+    }
+    Set<Long> found = new HashSet<>();
+    try (ReadYourWrites.Scope scope = ReadYourWrites.open()) {
+      memberSearchJdbcRepository.forEachInRange(event.getFromId(), event.getToId(), row -> {
+        current.upsert(row);
+        found.add(row.getMemberId());
+      });
+    }
+    for (long id : current.idsInRange(event.getFromId(), event.getToId())) {
+      if (!found.contains(id)) {
+        current.remove(id);
+      }
+    }
+  }
+
+  private void refreshTeams(Set<Long> teamIds) {
+    MemberSearchIndex current = index;
+    Map<Long, String> names = ReadYourWrites.call(() -> memberSearchJdbcRepository.findTeamNames(teamIds));
+    for (Long teamId : teamIds) {
+      current.renameTeam(teamId, names.get(teamId)); //지워진 팀은 null
+    }
+  }
+
+  private void refresh(Set<Long> memberIds) {
+    MemberSearchIndex current = index;
+    Set<Long> found = new HashSet<>();
+    try (ReadYourWrites.Scope scope = ReadYourWrites.open()) {
+      memberSearchJdbcRepository.forEachIn(memberIds, row -> {
+        current.upsert(row);
+        found.add(row.getMemberId());
+      });
+    }
+    for (Long id : memberIds) {
+      if (!found.contains(id)) {
+        current.remove(id);
+      }
+    }
+  }
+
+  /**
+   * 한 트랜잭션에서 바뀐 member, team id. 커밋된 뒤에 한번에 다시 읽는다.
+   */
+  private static class PendingChanges {
+    private final Set<Long> memberIds = new HashSet<>();
+    private final Set<Long> teamIds = new HashSet<>();
+  }
+}
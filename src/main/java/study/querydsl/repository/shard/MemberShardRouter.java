@@ -0,0 +1,31 @@
+package study.querydsl.repository.shard;
+
+/**
+ * member 가 어느 샤드에 있는지 정한다.
+ *
+ * member 는 소속 팀 이름의 해시로 나눠서 같은 팀은 항상 같은 샤드에 모이게 한다. (팀 이름 조건이면 샤드 하나만 조회)
+ * 팀이 없는 member 는 member id 로 나눈다.
+ */
+public class MemberShardRouter {
+
+  private final int shardCount;
+
+  public MemberShardRouter(int shardCount) {
+    if (shardCount <= 0) {
+      throw new IllegalArgumentException("shardCount must be greater than zero: " + shardCount);
+    }
+    this.shardCount = shardCount;
+  }
+
+  public int shardCount() {
+    return shardCount;
+  }
+
+  public int shardOfTeam(String teamName) {
+    return Math.floorMod(teamName.hashCode(), shardCount);
+  }
+
+  public int shardOf(long memberId, String teamName) {
+    return teamName == null ? (int) Math.floorMod(memberId, (long) shardCount) : shardOfTeam(teamName);
+  }
+}
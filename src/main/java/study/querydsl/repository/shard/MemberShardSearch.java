@@ -0,0 +1,180 @@
+package study.querydsl.repository.shard;
+
+import static org.springframework.util.StringUtils.hasText;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.IntStream;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberSearchShape;
+import study.querydsl.repository.MemberSearchSql;
+
+/**
+ * 여러 DB(샤드)에 나눠 담긴 member 를 검색한다. querydsl.sharding.enabled=true 일 때만 등록된다.
+ *
+ * 1. 팀 이름 조건이 있으면 그 팀이 있는 샤드 하나만, 없으면 모든 샤드를 조회한다. (MemberShardRouter)
+ * 2. 샤드마다 같은 SQL(MemberSearchSql)에 member_id 정렬과 limit 을 붙여 shardQueryExecutor 에서 동시에 실행한다.
+ * 3. 샤드별로 정렬된 결과를 member_id 순으로 k-way merge 하면서 limit 만큼만 꺼낸다.
+ *
+ * 샤드마다 JPA EntityManagerFactory 를 따로 띄우지 않도록 JDBC 로 조회한다.
+ *
+ * 범위: 샤드는 데이터 이관(shard(i) 로 직접 insert)으로 채우는 읽기 전용 사본이다.
+ * 샤드를 읽는 것은 MemberRepository.search(limit 포함) / searchAsync 뿐이고, searchPage*, searchSlice, 통계 등 나머지 조회는 primary 를 읽는다.
+ * 애플리케이션의 쓰기는 샤드로 가지 않으므로 켜져 있는 동안 JPA 로 member/team 을 쓰면 거부한다. (ShardWriteGuard, MemberBulkRepository)
+ */
+@Component
+@ConditionalOnProperty(name = "querydsl.sharding.enabled", havingValue = "true")
+@EnableConfigurationProperties(ShardingProperties.class)
+public class MemberShardSearch implements DisposableBean {
+
+  private static final Comparator<MemberTeamDto> ORDER = Comparator.comparing(MemberTeamDto::getMemberId);
+
+  private final MemberShardRouter router;
+  private final List<HikariDataSource> dataSources = new ArrayList<>();
+  private final List<JdbcTemplate> shards = new ArrayList<>();
+  private final TaskExecutor executor;
+
+  public MemberShardSearch(ShardingProperties properties,
+      @Qualifier("shardQueryExecutor") TaskExecutor executor, EntityManagerFactory emf) {
+    this.router = new MemberShardRouter(properties.getShards().size());
+    this.executor = executor;
+
+    ShardWriteGuard guard = new ShardWriteGuard();
+    EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+        .getServiceRegistry()
+        .getService(EventListenerRegistry.class);
+    registry.appendListeners(EventType.PRE_INSERT, guard);
+    registry.appendListeners(EventType.PRE_UPDATE, guard);
+    registry.appendListeners(EventType.PRE_DELETE, guard);
+
+    for (int i = 0; i < properties.getShards().size(); i++) {
+      ShardingProperties.Shard shard = properties.getShards().get(i);
+      HikariDataSource dataSource = DataSourceBuilder.create()
+          .type(HikariDataSource.class)
+          .url(shard.getUrl())
+          .username(shard.getUsername())
+          .password(shard.getPassword())
+          .build();
+      dataSource.setPoolName("shard-" + i);
+      dataSource.setMaximumPoolSize(shard.getMaximumPoolSize());
+      dataSources.add(dataSource);
+      shards.add(new JdbcTemplate(dataSource));
+
+      if (properties.isInitSchema()) {
+        DatabasePopulatorUtils.execute(new ResourceDatabasePopulator(new ClassPathResource("db/shard/schema.sql")),
+            dataSource);
+      }
+    }
+  }
+
+  public MemberShardRouter getRouter() {
+    return router;
+  }
+
+  /**
+   * 샤드에 직접 쓸 때 사용 (데이터 이관, 테스트)
+   */
+  public JdbcTemplate shard(int index) {
+    return shards.get(index);
+  }
+
+  public List<MemberTeamDto> search(MemberSearchCondition condition) {
+    return search(condition, Integer.MAX_VALUE);
+  }
+
+  /**
+   * member_id 순으로 최대 limit 건
+   */
+  public List<MemberTeamDto> search(MemberSearchCondition condition, int limit) {
+    MemberSearchShape shape = MemberSearchShape.of(condition);
+    String sql = MemberSearchSql.of(shape) + " order by m.member_id fetch first ? rows only";
+
+    List<CompletableFuture<List<MemberTeamDto>>> futures = IntStream.of(shardsFor(condition))
+        .mapToObj(shards::get)
+        .map(shard -> CompletableFuture.supplyAsync(() -> shard.query(sql, ps -> {
+          int index = MemberSearchSql.bind(ps, shape, condition);
+          ps.setInt(index, limit);
+        }, MemberSearchSql.DTO_MAPPER), executor))
+        .toList();
+
+    List<List<MemberTeamDto>> results = futures.stream().map(MemberShardSearch::join).toList();
+    return merge(results, limit);
+  }
+
+  //샤드 조회 실패는 CompletionException 이 아니라 원래 예외(DataAccessException)로 던진다
+  private static <T> T join(CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  int[] shardsFor(MemberSearchCondition condition) {
+    if (hasText(condition.getTeamName())) {
+      return new int[]{router.shardOfTeam(condition.getTeamName())};
+    }
+    return IntStream.range(0, router.shardCount()).toArray();
+  }
+
+  /**
+   * 각각 정렬된 목록들을 하나로 합친다. 큐에는 목록마다 아직 꺼내지 않은 가장 작은 값 하나씩만 들어있다.
+   */
+  static List<MemberTeamDto> merge(List<List<MemberTeamDto>> sortedLists, int limit) {
+    if (sortedLists.size() == 1) {
+      List<MemberTeamDto> only = sortedLists.get(0);
+      return only.size() <= limit ? only : only.subList(0, limit);
+    }
+
+    //[목록 번호, 목록 안 위치]
+    PriorityQueue<int[]> heads = new PriorityQueue<>(
+        (a, b) -> ORDER.compare(sortedLists.get(a[0]).get(a[1]), sortedLists.get(b[0]).get(b[1])));
+    int total = 0;
+    for (int i = 0; i < sortedLists.size(); i++) {
+      if (!sortedLists.get(i).isEmpty()) {
+        heads.add(new int[]{i, 0});
+      }
+      total += sortedLists.get(i).size();
+    }
+
+    List<MemberTeamDto> merged = new ArrayList<>(Math.min(total, limit));
+    while (!heads.isEmpty() && merged.size() < limit) {
+      int[] head = heads.poll();
+      List<MemberTeamDto> list = sortedLists.get(head[0]);
+      merged.add(list.get(head[1]));
+      if (++head[1] < list.size()) {
+        heads.add(head);
+      }
+    }
+    return merged;
+  }
+
+  @Override
+  public void destroy() {
+    dataSources.forEach(HikariDataSource::close);
+  }
+}
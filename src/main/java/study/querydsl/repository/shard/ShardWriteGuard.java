@@ -0,0 +1,44 @@
+package study.querydsl.repository.shard;
+
+import org.hibernate.event.spi.PreDeleteEvent;
+import org.hibernate.event.spi.PreDeleteEventListener;
+import org.hibernate.event.spi.PreInsertEvent;
+import org.hibernate.event.spi.PreInsertEventListener;
+import org.hibernate.event.spi.PreUpdateEvent;
+import org.hibernate.event.spi.PreUpdateEventListener;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+/**
+ * 샤딩을 켜면 member/team 의 JPA 쓰기를 거부한다.
+ * 쓰기는 primary 로만 가고 샤드에는 반영되지 않아서 search 결과와 나머지 조회 결과가 어긋나기 때문이다. (MemberShardSearch)
+ */
+public class ShardWriteGuard implements PreInsertEventListener, PreUpdateEventListener, PreDeleteEventListener {
+
+  public static final String MESSAGE =
+      "member/team writes are disabled while querydsl.sharding.enabled=true (shards are a read-only copy filled by migration)";
+
+  @Override
+  public boolean onPreInsert(PreInsertEvent event) {
+    check(event.getEntity());
+    return false;
+  }
+
+  @Override
+  public boolean onPreUpdate(PreUpdateEvent event) {
+    check(event.getEntity());
+    return false;
+  }
+
+  @Override
+  public boolean onPreDelete(PreDeleteEvent event) {
+    check(event.getEntity());
+    return false;
+  }
+
+  private void check(Object entity) {
+    if (entity instanceof Member || entity instanceof Team) {
+      throw new IllegalStateException(MESSAGE);
+    }
+  }
+}
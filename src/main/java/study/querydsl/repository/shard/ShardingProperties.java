@@ -0,0 +1,41 @@
+package study.querydsl.repository.shard;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * querydsl.sharding.* 설정
+ *
+ * 샤드는 이관으로 채우는 읽기 전용 사본이고 MemberRepository.search 만 샤드를 읽는다. 켜져 있는 동안 member/team 쓰기는 거부된다. (MemberShardSearch)
+ *
+ * <pre>
+ * querydsl.sharding:
+ *   enabled: true
+ *   init-schema: true
+ *   shards:
+ *     - url: jdbc:h2:tcp://localhost/~/querydsl-shard0
+ *     - url: jdbc:h2:tcp://localhost/~/querydsl-shard1
+ * </pre>
+ */
+@Getter
+@Setter
+@ConfigurationProperties("querydsl.sharding")
+public class ShardingProperties {
+
+  private boolean enabled;
+  private boolean initSchema; //true 면 시작할 때 각 샤드에 member/team 테이블을 만든다 (db/shard/schema.sql)
+  private List<Shard> shards = new ArrayList<>();
+
+  @Getter
+  @Setter
+  public static class Shard {
+
+    private String url;
+    private String username = "sa";
+    private String password = "";
+    private int maximumPoolSize = 5;
+  }
+}
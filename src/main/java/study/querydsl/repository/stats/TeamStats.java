@@ -0,0 +1,76 @@
+package study.querydsl.repository.stats;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import study.querydsl.dto.TeamStatsDto;
+
+/**
+ * 팀별 member 수, 나이 합계, 나이별 인원(히스토그램)을 메모리에 들고 증감만 반영한다.
+ * min/max 는 나이별 인원에서 바로 구하므로 가장 어린/나이 많은 member 가 빠져도 다시 스캔하지 않는다.
+ * 조회는 O(팀 수), 반영은 member 한 명당 O(log 나이 종류) 이다.
+ */
+public class TeamStats {
+
+  private final ConcurrentMap<Long, TeamAggregate> teams = new ConcurrentHashMap<>();
+
+  public void add(long teamId, int age) {
+    aggregate(teamId).add(age, 1);
+  }
+
+  public void add(long teamId, int age, long members) {
+    aggregate(teamId).add(age, members);
+  }
+
+  public void remove(long teamId, int age) {
+    TeamAggregate aggregate = teams.get(teamId);
+    if (aggregate != null) {
+      aggregate.add(age, -1);
+    }
+  }
+
+  public void teamChanged(long teamId, String name) {
+    aggregate(teamId).name = name;
+  }
+
+  public void teamRemoved(long teamId) {
+    teams.remove(teamId);
+  }
+
+  /**
+   * 팀 id 순. 이름을 모르는 팀(JPA 를 거치지 않고 생긴 팀)은 teamName 이 null
+   */
+  public List<TeamStatsDto> snapshot() {
+    List<TeamStatsDto> result = new ArrayList<>(teams.size());
+    new TreeMap<>(teams).forEach((teamId, aggregate) -> result.add(aggregate.toDto(teamId)));
+    return result;
+  }
+
+  private TeamAggregate aggregate(long teamId) {
+    return teams.computeIfAbsent(teamId, id -> new TeamAggregate());
+  }
+
+  private static class TeamAggregate {
+
+    private volatile String name;
+    private long count;
+    private long sum;
+    private final TreeMap<Integer, Long> ages = new TreeMap<>();
+
+    synchronized void add(int age, long members) {
+      count += members;
+      sum += (long) age * members;
+      ages.merge(age, members, (a, b) -> a + b == 0 ? null : a + b); //0 명이 되면 뺀다
+    }
+
+    synchronized TeamStatsDto toDto(long teamId) {
+      Map.Entry<Integer, Long> min = ages.firstEntry();
+      Map.Entry<Integer, Long> max = ages.lastEntry();
+      return new TeamStatsDto(teamId, name, count, sum,
+          min == null ? null : min.getKey(), max == null ? null : max.getKey());
+    }
+  }
+}
@@ -0,0 +1,135 @@
+package study.querydsl.repository.stats;
+
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+/**
+ * Member, Team 변경이 커밋되면 TeamStats 에 증감을 반영한다. 롤백된 변경은 들어오지 않는다.
+ * update 는 Hibernate 가 넘겨주는 변경 전 상태(oldState)로 이전 팀/나이를 빼고 새 값을 더한다.
+ * 변경 전 상태가 없으면(merge 등) 해당 member 를 정확히 뺄 수 없으므로 다음 조회 때 전체를 다시 읽는다.
+ * 반영이 끝나면 flush 때 들어간 게이트(TeamStatsFlushListener)를 나온다. 롤백되어도 나온다.
+ */
+class TeamStatsEventListener implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+    PostCommitDeleteEventListener {
+
+  private final TeamStatsRepository repository;
+
+  TeamStatsEventListener(TeamStatsRepository repository) {
+    this.repository = repository;
+  }
+
+  @Override
+  public boolean requiresPostCommitHandling(EntityPersister persister) {
+    return persister.getMappedClass() == Member.class || persister.getMappedClass() == Team.class;
+  }
+
+  @Override
+  public void onPostInsert(PostInsertEvent event) {
+    try {
+      applyInsert(event);
+    } finally {
+      repository.exitCommit();
+    }
+  }
+
+  @Override
+  public void onPostUpdate(PostUpdateEvent event) {
+    try {
+      applyUpdate(event);
+    } finally {
+      repository.exitCommit();
+    }
+  }
+
+  @Override
+  public void onPostDelete(PostDeleteEvent event) {
+    try {
+      applyDelete(event);
+    } finally {
+      repository.exitCommit();
+    }
+  }
+
+  @Override
+  public void onPostInsertCommitFailed(PostInsertEvent event) {
+    repository.exitCommit();
+  }
+
+  @Override
+  public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    repository.exitCommit();
+  }
+
+  @Override
+  public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    repository.exitCommit();
+  }
+
+  private void applyInsert(PostInsertEvent event) {
+    TeamStats stats = repository.stats();
+    if (event.getEntity() instanceof Team team) {
+      stats.teamChanged(team.getId(), team.getName());
+      return;
+    }
+    Long teamId = teamId(event.getPersister(), event.getState());
+    if (teamId != null) {
+      stats.add(teamId, age(event.getPersister(), event.getState()));
+    }
+  }
+
+  private void applyUpdate(PostUpdateEvent event) {
+    TeamStats stats = repository.stats();
+    if (event.getEntity() instanceof Team team) {
+      stats.teamChanged(team.getId(), team.getName());
+      return;
+    }
+    if (event.getOldState() == null) {
+      repository.markStale(); //아직 게이트 안이므로 여기서 바로 다시 읽으면 자기 자신을 기다린다
+      return;
+    }
+    Long oldTeamId = teamId(event.getPersister(), event.getOldState());
+    if (oldTeamId != null) {
+      stats.remove(oldTeamId, age(event.getPersister(), event.getOldState()));
+    }
+    Long teamId = teamId(event.getPersister(), event.getState());
+    if (teamId != null) {
+      stats.add(teamId, age(event.getPersister(), event.getState()));
+    }
+  }
+
+  private void applyDelete(PostDeleteEvent event) {
+    TeamStats stats = repository.stats();
+    if (event.getEntity() instanceof Team) {
+      stats.teamRemoved((Long) event.getId());
+      return;
+    }
+    Long teamId = teamId(event.getPersister(), event.getDeletedState());
+    if (teamId != null) {
+      stats.remove(teamId, age(event.getPersister(), event.getDeletedState()));
+    }
+  }
+
+  private static int age(EntityPersister persister, Object[] state) {
+    return (Integer) state[persister.getEntityMetamodel().getPropertyIndex("age")];
+  }
+
+  //커밋 뒤에는 프록시를 초기화할 수 없으므로 id 만 꺼낸다
+  private static Long teamId(EntityPersister persister, Object[] state) {
+    Object team = state[persister.getEntityMetamodel().getPropertyIndex("team")];
+    if (team == null) {
+      return null;
+    }
+    if (team instanceof HibernateProxy proxy) {
+      return (Long) proxy.getHibernateLazyInitializer().getInternalIdentifier();
+    }
+    return ((Team) team).getId();
+  }
+}
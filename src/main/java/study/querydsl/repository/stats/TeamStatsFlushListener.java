@@ -0,0 +1,50 @@
+package study.querydsl.repository.stats;
+
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+/**
+ * Member, Team 변경이 DB 로 flush 될 때(커밋 전) 통계 게이트에 들어간다.
+ * 같은 변경의 커밋/롤백 처리(TeamStatsEventListener)에서 게이트를 나오므로, 게이트 안에 있는 변경은 아직 통계에 반영되지 않은 것이다.
+ */
+class TeamStatsFlushListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+  private final TeamStatsRepository repository;
+
+  TeamStatsFlushListener(TeamStatsRepository repository) {
+    this.repository = repository;
+  }
+
+  @Override
+  public boolean requiresPostCommitHandling(EntityPersister persister) {
+    return false;
+  }
+
+  @Override
+  public void onPostInsert(PostInsertEvent event) {
+    enter(event.getEntity());
+  }
+
+  @Override
+  public void onPostUpdate(PostUpdateEvent event) {
+    enter(event.getEntity());
+  }
+
+  @Override
+  public void onPostDelete(PostDeleteEvent event) {
+    enter(event.getEntity());
+  }
+
+  private void enter(Object entity) {
+    if (entity instanceof Member || entity instanceof Team) {
+      repository.enterCommit();
+    }
+  }
+}
@@ -0,0 +1,192 @@
+package study.querydsl.repository.stats;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManagerFactory;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.TeamStatsDto;
+import study.querydsl.repository.MemberBulkFinishedEvent;
+
+/**
+ * 팀별 member.age 통계 (count, sum, avg, min, max).
+ *
+ * 매번 group by 로 member 전체를 읽지 않고, 시작할 때 한번 읽어둔 집계(TeamStats)에 커밋된 변경만 더하고 뺀다.
+ * 조회는 팀 수에 비례하고 member 수와는 상관없다.
+ *
+ * 1. 애플리케이션이 뜨면 (팀, 나이)별 인원을 한번 읽는다. 다 읽기 전까지는 group by 로 조회한다.
+ * 2. 엔티티 변경은 커밋된 뒤에 TeamStatsEventListener 가 반영한다.
+ * 3. 벌크 연산은 바뀌기 전 값을 알 수 없으므로 연산이 끝나면(MemberBulkFinishedEvent) 한번 전체를 다시 읽는다.
+ *    청크마다 다시 읽지 않으므로 벌크 연산이 도는 동안에는 연산 전 통계가 보인다.
+ *
+ * 다시 읽는 동안 커밋된 변경이 빠지거나 두번 더해지지 않도록 커밋 게이트를 둔다.
+ * flush 된 변경은 커밋 처리(반영)가 끝날 때까지 게이트의 read lock 을 잡고(TeamStatsFlushListener -> TeamStatsEventListener),
+ * reload 는 write lock 을 잡고 읽은 뒤 교체한다. 그래서 reload 가 읽는 동안에는 member/team 변경의 flush 가 기다린다.
+ * write lock 을 기다리는 동안에도 새 flush 가 막히므로(ReentrantReadWriteLock) 오래 기다리지 않는다. (querydsl.team-stats.gate-timeout)
+ * 게이트를 닫지 못하면 지금 통계를 그대로 두고 stale 로 표시해서 다음 조회 때 다시 읽는다. 그 사이 조회는 group by 로 한다.
+ *
+ * MemberBulkRepository 를 거치지 않은 JPQL/SQL 벌크 변경은 반영되지 않으므로 그 뒤에는 reload() 를 호출해야 한다.
+ */
+@Slf4j
+@Repository
+@Transactional(readOnly = true)
+public class TeamStatsRepository {
+
+  private final JPAQueryFactory queryFactory;
+  private final TransactionTemplate reloadTransaction;
+  private final Duration gateTimeout;
+  private final ReentrantReadWriteLock commitGate = new ReentrantReadWriteLock();
+  private volatile TeamStats stats = new TeamStats();
+  private volatile boolean ready;
+  private volatile boolean stale;
+
+  public TeamStatsRepository(JPAQueryFactory queryFactory, EntityManagerFactory emf,
+      PlatformTransactionManager transactionManager,
+      @Value("${querydsl.team-stats.gate-timeout:100ms}") Duration gateTimeout) {
+    this.queryFactory = queryFactory;
+    this.gateTimeout = gateTimeout;
+    //이후 커밋된 변경을 여기에 더해가므로 복제 지연이 있는 replica 가 아니라 primary 에서 읽는다. (읽기 전용이 아닌 새 트랜잭션)
+    this.reloadTransaction = new TransactionTemplate(transactionManager);
+    this.reloadTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+    TeamStatsEventListener listener = new TeamStatsEventListener(this);
+    TeamStatsFlushListener flushListener = new TeamStatsFlushListener(this);
+    EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+        .getServiceRegistry()
+        .getService(EventListenerRegistry.class);
+    registry.appendListeners(EventType.POST_INSERT, flushListener);
+    registry.appendListeners(EventType.POST_UPDATE, flushListener);
+    registry.appendListeners(EventType.POST_DELETE, flushListener);
+    registry.appendListeners(EventType.POST_COMMIT_INSERT, listener);
+    registry.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+    registry.appendListeners(EventType.POST_COMMIT_DELETE, listener);
+  }
+
+  public List<TeamStatsDto> findAll() {
+    if (stale) {
+      reload();
+    }
+    return ready && !stale ? stats.snapshot() : findAllByGroupBy();
+  }
+
+  public Optional<TeamStatsDto> findByTeamName(String teamName) {
+    return findAll().stream()
+        .filter(dto -> teamName.equals(dto.getTeamName()))
+        .findFirst();
+  }
+
+  /**
+   * DB 에서 group by 로 직접 구한 통계. 집계를 다 읽기 전, 그리고 결과 비교용
+   */
+  public List<TeamStatsDto> findAllByGroupBy() {
+    return queryFactory
+        .select(team.id, team.name, member.count(), member.age.sum().longValue(), member.age.min(), member.age.max())
+        .from(team)
+        .leftJoin(team.members, member)
+        .groupBy(team.id, team.name)
+        .orderBy(team.id.asc())
+        .fetch()
+        .stream()
+        .map(tuple -> {
+          Long count = tuple.get(2, Long.class);
+          Long sum = tuple.get(3, Long.class);
+          return new TeamStatsDto(tuple.get(team.id), tuple.get(team.name), count == null ? 0 : count,
+              sum == null ? 0 : sum, tuple.get(4, Integer.class), tuple.get(5, Integer.class));
+        })
+        .toList();
+  }
+
+  /**
+   * 전체를 다시 읽어서 교체한다. 읽는 동안에는 커밋 게이트를 닫아서 그 사이에 커밋되는 변경이 없게 한다.
+   * 이 스레드가 flush 한 변경이 아직 게이트 안에 있거나 gate-timeout 안에 게이트를 닫지 못하면
+   * 지금 통계를 그대로 두고 다음 조회 때 다시 읽는다.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public void reload() {
+    if (commitGate.getReadHoldCount() > 0 || !lockGate()) {
+      markStale();
+      return;
+    }
+    try {
+      TeamStats loaded = reloadTransaction.execute(status -> load());
+      stats = loaded;
+      ready = true;
+      stale = false;
+      log.info("team stats loaded. teams={}", loaded.snapshot().size());
+    } finally {
+      commitGate.writeLock().unlock();
+    }
+  }
+
+  @EventListener
+  public void onBulkFinished(MemberBulkFinishedEvent event) {
+    reload();
+  }
+
+  void markStale() {
+    stale = true;
+  }
+
+  void enterCommit() {
+    commitGate.readLock().lock();
+  }
+
+  void exitCommit() {
+    if (commitGate.getReadHoldCount() > 0) { //flush 전에 실패한 변경은 들어온 적이 없다
+      commitGate.readLock().unlock();
+    }
+  }
+
+  private TeamStats load() {
+    TeamStats loaded = new TeamStats();
+    for (Tuple row : queryFactory.select(team.id, team.name).from(team).fetch()) {
+      loaded.teamChanged(row.get(team.id), row.get(team.name));
+    }
+    List<Tuple> rows = queryFactory
+        .select(member.team.id, member.age, member.count())
+        .from(member)
+        .where(member.team.isNotNull())
+        .groupBy(member.team.id, member.age)
+        .fetch();
+    for (Tuple row : rows) {
+      loaded.add(row.get(member.team.id), row.get(member.age), row.get(member.count()));
+    }
+    return loaded;
+  }
+
+  private boolean lockGate() {
+    try {
+      if (commitGate.writeLock().tryLock(gateTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+        return true;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    log.info("team stats reload could not close the commit gate within {}. retry on next read", gateTimeout);
+    return false;
+  }
+
+  TeamStats stats() {
+    return stats;
+  }
+}
@@ -0,0 +1,49 @@
+package study.querydsl.repository.support;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.config.ReadYourWrites;
+
+/**
+ * 조회를 asyncQueryExecutor 스레드에서 실행하고 CompletableFuture 로 돌려준다.
+ *
+ * 작업마다 읽기 전용 트랜잭션을 새로 열기 때문에 작업마다 EntityManager(= 커넥션)가 따로 생기고, 작업이 끝나면 닫힌다.
+ * 공유 EntityManager 프록시와 JPAQueryFactory 빈은 실행 중인 스레드의 EntityManager 로 연결되므로 동기 조회 코드를 그대로 쓸 수 있다.
+ * 호출한 쪽의 트랜잭션과는 별개이므로, 호출한 쪽에서 아직 커밋하지 않은 변경은 보이지 않는다.
+ * 호출한 스레드에서 ReadYourWrites 가 켜져 있으면 작업 스레드에서도 켜서 primary 에서 읽는다.
+ */
+@Component
+public class AsyncQueries {
+
+  private final Executor executor;
+  private final TransactionTemplate readOnlyTransaction;
+
+  public AsyncQueries(@Qualifier("asyncQueryExecutor") Executor executor,
+      PlatformTransactionManager transactionManager) {
+    this.executor = executor;
+    this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+    this.readOnlyTransaction.setReadOnly(true); //replica 로 (DataSourceRoutingConfig)
+    this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+  }
+
+  public <T> CompletableFuture<T> supply(Supplier<T> query) {
+    return supply(query, executor);
+  }
+
+  /**
+   * asyncQueryExecutor 대신 지정한 스레드풀에서 실행 (예: countQueryExecutor)
+   */
+  public <T> CompletableFuture<T> supply(Supplier<T> query, Executor executor) {
+    boolean readYourWrites = ReadYourWrites.isEnabled(); //ThreadLocal 이므로 작업 스레드로 넘겨준다
+    return CompletableFuture.supplyAsync(() -> {
+      Supplier<T> inTransaction = () -> readOnlyTransaction.execute(status -> query.get());
+      return readYourWrites ? ReadYourWrites.call(inTransaction) : inTransaction.get();
+    }, executor);
+  }
+}
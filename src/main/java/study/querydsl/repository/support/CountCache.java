@@ -0,0 +1,111 @@
+package study.querydsl.repository.support;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.repository.MemberRangeChangedEvent;
+
+/**
+ * 페이징 totalCount 를 짧은 시간(TTL) 동안 재사용하기 위한 캐시.
+ * 같은 검색 조건으로 페이지만 넘기는 경우 count 쿼리를 매번 다시 날리지 않는다.
+ * member/team 이 바뀌면 MemberPageCache 처럼 커밋된 뒤에 전부 비운다. (QueryCacheListener, MemberRangeChangedEvent)
+ * 이 트랜잭션에서 이미 member/team 을 바꿨으면 커밋될 때까지 캐시를 쓰지 않는다.
+ * JPA 를 거치지 않은 변경(JdbcTemplate 등)은 TTL 이 지날 때까지 이전 값으로 조회된다.
+ * ttl 이 0 이면 캐시하지 않고 항상 count 쿼리를 실행한다.
+ */
+@Component
+public class CountCache {
+
+  private final long ttlNanos;
+  private final int maxSize;
+  private final ConcurrentHashMap<List<Object>, Entry> cache = new ConcurrentHashMap<>();
+  private final AtomicLong version = new AtomicLong();
+
+  public CountCache(@Value("${querydsl.count-cache.ttl:5s}") Duration ttl,
+      @Value("${querydsl.count-cache.max-size:1000}") int maxSize) {
+    this.ttlNanos = ttl.toNanos();
+    this.maxSize = maxSize;
+  }
+
+  public long get(String name, Object key, LongSupplier countQuery) {
+    if (ttlNanos <= 0 || TransactionSynchronizationManager.hasResource(this)) { //clearAfterCommit 대기 중 = 커밋 전 변경이 있다
+      return countQuery.getAsLong();
+    }
+
+    List<Object> cacheKey = Arrays.asList(name, key);
+    long now = System.nanoTime();
+    long currentVersion = version.get();
+    Entry entry = cache.get(cacheKey);
+    if (entry != null && entry.version == currentVersion && entry.expiresAt - now > 0) {
+      return entry.count;
+    }
+
+    long count = countQuery.getAsLong();
+    if (cache.size() >= maxSize) {
+      cache.values().removeIf(e -> e.expiresAt - now <= 0);
+      if (cache.size() >= maxSize) {
+        cache.clear();
+      }
+    }
+    if (version.get() == currentVersion) { //세는 동안 변경이 커밋됐으면 저장하지 않는다
+      cache.put(cacheKey, new Entry(count, currentVersion, now + ttlNanos));
+    }
+    return count;
+  }
+
+  public void clear() {
+    version.incrementAndGet();
+    cache.clear();
+  }
+
+  /**
+   * 트랜잭션 안이면 커밋된 뒤에 한번만, 밖이면 바로 비운다. 롤백되면 비우지 않는다. (MemberPageCache 와 같음)
+   */
+  public void clearAfterCommit() {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      clear();
+      return;
+    }
+    if (TransactionSynchronizationManager.hasResource(this)) {
+      return;
+    }
+    TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        clear();
+      }
+
+      @Override
+      public void afterCompletion(int status) {
+        TransactionSynchronizationManager.unbindResource(CountCache.this);
+      }
+    });
+  }
+
+  //벌크 연산은 청크마다 별도 트랜잭션으로 이미 커밋된 뒤에 알려준다
+  @EventListener
+  public void onRangeChanged(MemberRangeChangedEvent event) {
+    clear();
+  }
+
+  private static class Entry {
+    private final long count;
+    private final long version;
+    private final long expiresAt;
+
+    Entry(long count, long version, long expiresAt) {
+      this.count = count;
+      this.version = version;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
@@ -0,0 +1,156 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.DefaultQueryMetadata;
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.JoinFlag;
+import com.querydsl.core.JoinType;
+import com.querydsl.core.QueryFlag;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.JPAQueryMixin;
+import com.querydsl.jpa.impl.JPAProvider;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAUtil;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * content 쿼리로부터 totalCount 쿼리를 자동으로 만들어준다.
+ *
+ * <ul>
+ *   <li>order by, offset/limit 제거</li>
+ *   <li>fetch join 제거</li>
+ *   <li>where/group by/having 에서 쓰지 않는 ~ToOne left join 제거 (row 수에 영향 없음)</li>
+ *   <li>select 절은 count(root) 로 교체</li>
+ * </ul>
+ * group by 나 select distinct 가 있어서 count(root) 로 바꿀 수 없으면 group by 키(또는 distinct 대상)만 조회하는 쿼리를
+ * from 절 서브쿼리로 감싸서 센다. select count(*) from (select ... group by ...) grouped
+ * Querydsl JPQL 로는 from 절 서브쿼리를 만들 수 없으므로 직렬화한 HQL 문자열을 감싼다. (Hibernate 6 부터 지원)
+ *
+ * content 쿼리에 페이징을 적용하기 전에 {@link #derive(JPAQuery)} 로 만들어 두어야 한다.
+ */
+public final class CountQuery {
+
+  private final QueryMetadata metadata;
+  private final boolean countBySubQuery;
+
+  private CountQuery(QueryMetadata metadata, boolean countBySubQuery) {
+    this.metadata = metadata;
+    this.countBySubQuery = countBySubQuery;
+  }
+
+  public static CountQuery derive(JPAQuery<?> contentQuery) {
+    QueryMetadata source = contentQuery.getMetadata();
+    DefaultQueryMetadata count = new DefaultQueryMetadata();
+    count.setValidate(false);
+
+    Expression<?> root = null;
+    for (JoinExpression join : source.getJoins()) {
+      if (root == null && join.getType() == JoinType.DEFAULT) {
+        root = QueryPaths.aliasOf(join);
+      }
+      if (isRemovable(source, join)) {
+        continue;
+      }
+      count.addJoin(join.getType(), join.getTarget());
+      if (join.getCondition() != null) {
+        count.addJoinCondition(join.getCondition());
+      }
+      for (JoinFlag flag : join.getFlags()) {
+        if (!flag.equals(JPAQueryMixin.FETCH) && !flag.equals(JPAQueryMixin.FETCH_ALL_PROPERTIES)) {
+          count.addJoinFlag(flag);
+        }
+      }
+    }
+    if (source.getWhere() != null) {
+      count.addWhere(source.getWhere());
+    }
+    for (Expression<?> groupBy : source.getGroupBy()) {
+      count.addGroupBy(groupBy);
+    }
+    if (source.getHaving() != null) {
+      count.addHaving(source.getHaving());
+    }
+    for (Map.Entry<ParamExpression<?>, Object> param : source.getParams().entrySet()) {
+      setParam(count, param.getKey(), param.getValue());
+    }
+    for (QueryFlag flag : source.getFlags()) {
+      count.addFlag(flag);
+    }
+
+    Expression<?> projection = source.getProjection();
+    boolean distinct = source.isDistinct();
+    boolean countBySubQuery = root == null
+        || !source.getGroupBy().isEmpty()
+        || (distinct && projection != null && !projection.equals(root));
+
+    if (countBySubQuery) {
+      //group 하나(distinct 값 하나)가 row 하나. 안쪽 쿼리는 row 를 구분하는 값만 조회한다
+      count.setDistinct(distinct);
+      count.setProjection(keys(source.getGroupBy().isEmpty() || distinct
+          ? projectionArgs(projection)
+          : source.getGroupBy()));
+    } else {
+      count.setProjection(Expressions.numberOperation(Long.class,
+          distinct ? Ops.AggOps.COUNT_DISTINCT_AGG : Ops.AggOps.COUNT_AGG, root));
+    }
+    return new CountQuery(count, countBySubQuery);
+  }
+
+  private static List<Expression<?>> projectionArgs(Expression<?> projection) {
+    if (projection instanceof FactoryExpression<?> factory) {
+      return factory.getArgs();
+    }
+    return List.of(projection);
+  }
+
+  //from 절 서브쿼리의 select 항목에는 alias 가 있어야 한다
+  private static Expression<?> keys(List<Expression<?>> expressions) {
+    Expression<?>[] keys = new Expression<?>[expressions.size()];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = ExpressionUtils.as(expressions.get(i), "key" + i);
+    }
+    return Projections.tuple(keys);
+  }
+
+  private static boolean isRemovable(QueryMetadata source, JoinExpression join) {
+    if (join.getType() != JoinType.LEFTJOIN || !QueryPaths.isToOneAssociation(join)) {
+      return false;
+    }
+    Set<Path<?>> referenced = QueryPaths.referencedRoots(source, false, join);
+    return !referenced.contains(QueryPaths.aliasOf(join));
+  }
+
+  public long fetch(EntityManager em) {
+    if (countBySubQuery) {
+      return fetchBySubQuery(em);
+    }
+    JPAQuery<Long> query = new JPAQuery<>(em, metadata.clone()); //projection 은 count(root)
+    Long count = query.fetchOne();
+    return count == null ? 0L : count;
+  }
+
+  private long fetchBySubQuery(EntityManager em) {
+    JPQLSerializer serializer = new JPQLSerializer(JPAProvider.getTemplates(em), em);
+    serializer.serialize(metadata, false, null);
+    TypedQuery<Long> query = em.createQuery("select count(*) from (" + serializer + ") grouped", Long.class);
+    JPAUtil.setConstants(query, serializer.getConstants(), metadata.getParams());
+    Long count = query.getSingleResult();
+    return count == null ? 0L : count;
+  }
+
+  private static <P> void setParam(QueryMetadata metadata, ParamExpression<P> param, Object value) {
+    metadata.setParam(param, param.getType().cast(value));
+  }
+}
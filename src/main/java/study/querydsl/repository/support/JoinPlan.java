@@ -0,0 +1,86 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.Path;
+import com.querydsl.jpa.impl.JPAQuery;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import org.hibernate.Hibernate;
+import org.springframework.beans.PropertyAccessorFactory;
+
+/**
+ * JoinPlanner 가 만든 쿼리와, join/연관관계마다 어떻게 하기로 했는지(Decision)를 담는다.
+ * BATCH_FETCH 로 정한 연관관계는 fetch() 에서 결과를 받은 직후 초기화해서 (default_batch_fetch_size 만큼 in 쿼리로) 한번에 읽어둔다.
+ */
+public final class JoinPlan<T> {
+
+  public enum Strategy {
+    DTO_PROJECTION,  //엔티티가 아니라 컬럼만 조회. 연관관계 로딩 없음
+    ENTITY,          //엔티티 조회. 연관관계는 지연 로딩
+    FETCH_JOIN,      //엔티티 + 연관관계를 한 쿼리로
+    BATCH_FETCH      //엔티티 조회 후 연관관계를 in 쿼리로 묶어서 (~ToMany + 페이징)
+  }
+
+  public enum Decision {
+    PRUNED,       //어디서도 쓰지 않아서 join 하지 않음
+    FOREIGN_KEY,  //alias.id 만 써서 FK 컬럼(association.id)으로 바꾸고 join 하지 않음
+    LEFT_JOIN,
+    INNER_JOIN,   //where 조건이 null 을 거르므로 left join 이어도 결과가 같음
+    FETCH_JOIN,
+    BATCH_FETCH
+  }
+
+  private final JPAQuery<T> query;
+  private final Strategy strategy;
+  private final Map<Path<?>, Decision> decisions;
+  private final List<Path<?>> batchFetches;
+
+  JoinPlan(JPAQuery<T> query, Strategy strategy, Map<Path<?>, Decision> decisions, List<Path<?>> batchFetches) {
+    this.query = query;
+    this.strategy = strategy;
+    this.decisions = Collections.unmodifiableMap(decisions);
+    this.batchFetches = batchFetches;
+  }
+
+  /**
+   * 페이징/정렬을 더 붙일 수 있다. 그래도 조회는 fetch() 로 해야 BATCH_FETCH 가 적용된다.
+   */
+  public JPAQuery<T> query() {
+    return query;
+  }
+
+  public Strategy strategy() {
+    return strategy;
+  }
+
+  /**
+   * join alias 또는 fetch 로 요청한 연관관계 path 별 결정
+   */
+  public Map<Path<?>, Decision> decisions() {
+    return decisions;
+  }
+
+  public Decision decision(Path<?> aliasOrAssociation) {
+    return decisions.get(aliasOrAssociation);
+  }
+
+  public List<T> fetch() {
+    List<T> result = query.fetch();
+    for (Path<?> association : batchFetches) {
+      String property = association.getMetadata().getName();
+      for (T entity : result) {
+        //처음 하나를 초기화할 때 아직 초기화되지 않은 나머지도 batch size 만큼 같이 읽힌다
+        Hibernate.initialize(PropertyAccessorFactory.forBeanPropertyAccess(entity).getPropertyValue(property));
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    StringJoiner joiner = new StringJoiner(", ", strategy + " {", "}");
+    decisions.forEach((path, decision) -> joiner.add(path + "=" + decision));
+    return joiner.toString();
+  }
+}
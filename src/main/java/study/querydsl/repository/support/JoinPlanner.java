@@ -0,0 +1,273 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.CollectionExpression;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Operator;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.PathMetadata;
+import com.querydsl.core.types.PathType;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.support.ReplaceVisitor;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.metamodel.Metamodel;
+import jakarta.persistence.metamodel.SingularAttribute;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.Assert;
+import study.querydsl.repository.support.JoinPlan.Decision;
+import study.querydsl.repository.support.JoinPlan.Strategy;
+
+/**
+ * 조회할 컬럼(projection)과 실제로 들어온 조건을 보고 필요한 join 만 붙여서 쿼리를 만든다.
+ *
+ * <ul>
+ *   <li>leftJoin 으로 선언한 ~ToOne join 은 "필요하면 붙이는" join 이다. select/where/order by 어디서도 alias 를 쓰지 않으면 빼고,
+ *   alias.id 만 쓰면 FK 컬럼(member.team.id)으로 바꿔서 join 없이 조회한다.</li>
+ *   <li>where 에 alias 컬럼으로 null 을 거르는 조건(eq, in, 범위 등)이 있으면 left join 대신 inner join 으로 바꾼다.
+ *   결과는 같고 DB 가 join 순서를 자유롭게 고를 수 있다.</li>
+ *   <li>엔티티를 조회하면서 fetch(...) 로 요청한 연관관계는 ~ToOne 이면 fetch join, ~ToMany 는 페이징이 없으면 fetch join,
+ *   페이징이 있으면 (fetch join 하면 메모리에서 페이징하므로) batch fetch 로 읽는다.</li>
+ *   <li>DTO/컬럼 조회는 엔티티를 영속성 컨텍스트에 올리지 않으므로 fetch 요청을 받지 않는다.</li>
+ * </ul>
+ * 어떻게 정했는지는 JoinPlan 에 남기고 debug 로그로 찍는다. (logging.level.study.querydsl.repository.support.JoinPlanner: debug)
+ */
+@Slf4j
+public class JoinPlanner<T> {
+
+  //컬럼이 null 이면 false/unknown 이 되어 row 가 걸러지는 연산
+  private static final Set<Operator> NULL_REJECTING = Set.of(
+      Ops.EQ, Ops.NE, Ops.EQ_IGNORE_CASE, Ops.LT, Ops.GT, Ops.LOE, Ops.GOE, Ops.BETWEEN, Ops.IN, Ops.NOT_IN,
+      Ops.LIKE, Ops.LIKE_IC, Ops.STARTS_WITH, Ops.STARTS_WITH_IC, Ops.ENDS_WITH, Ops.ENDS_WITH_IC,
+      Ops.STRING_CONTAINS, Ops.STRING_CONTAINS_IC, Ops.IS_NOT_NULL);
+
+  private final JPAQueryFactory queryFactory;
+  private final Metamodel metamodel;
+  private final Expression<T> projection;
+  private EntityPath<?> from;
+  private final Map<Path<?>, EntityPath<?>> optionalJoins = new LinkedHashMap<>(); //alias -> 연관관계
+  private final List<Predicate> where = new ArrayList<>();
+  private final List<OrderSpecifier<?>> orderBy = new ArrayList<>();
+  private final List<Path<?>> fetches = new ArrayList<>();
+  private boolean paged;
+
+  public JoinPlanner(JPAQueryFactory queryFactory, Metamodel metamodel, Expression<T> projection) {
+    this.queryFactory = queryFactory;
+    this.metamodel = metamodel;
+    this.projection = projection;
+  }
+
+  public JoinPlanner<T> from(EntityPath<?> from) {
+    this.from = from;
+    return this;
+  }
+
+  /**
+   * 필요할 때만 붙는 ~ToOne join
+   */
+  public <P> JoinPlanner<T> leftJoin(EntityPath<P> association, EntityPath<P> alias) {
+    optionalJoins.put(alias, association);
+    return this;
+  }
+
+  /**
+   * null 은 무시한다. (Querydsl where 와 같음)
+   */
+  public JoinPlanner<T> where(Predicate... predicates) {
+    Arrays.stream(predicates).filter(Objects::nonNull).forEach(where::add);
+    return this;
+  }
+
+  public JoinPlanner<T> orderBy(OrderSpecifier<?>... orders) {
+    orderBy.addAll(Arrays.asList(orders));
+    return this;
+  }
+
+  /**
+   * 조회한 엔티티에서 바로 쓸 연관관계 (member.team, team.members). 엔티티 조회에서만 쓸 수 있다.
+   */
+  public JoinPlanner<T> fetch(Path<?>... associations) {
+    fetches.addAll(Arrays.asList(associations));
+    return this;
+  }
+
+  /**
+   * 뒤에서 offset/limit 을 붙일 쿼리. ~ToMany 는 fetch join 대신 batch fetch 로 읽는다.
+   */
+  public JoinPlanner<T> paged() {
+    this.paged = true;
+    return this;
+  }
+
+  @SuppressWarnings("unchecked")
+  public JoinPlan<T> build() {
+    Assert.notNull(from, "From must not be null!");
+    boolean entityProjection = projection instanceof EntityPath<?>;
+    Assert.isTrue(entityProjection || fetches.isEmpty(), "Fetch requires an entity projection: " + projection);
+
+    ForeignKeyRewriter rewriter = new ForeignKeyRewriter();
+    Expression<T> select = (Expression<T>) projection.accept(rewriter, null);
+    List<Predicate> conditions = new ArrayList<>();
+    for (Predicate predicate : where) {
+      conditions.add((Predicate) predicate.accept(rewriter, null));
+    }
+    List<OrderSpecifier<?>> orders = new ArrayList<>();
+    for (OrderSpecifier<?> order : orderBy) {
+      orders.add(rewrite(order, rewriter));
+    }
+
+    Set<Path<?>> referenced = referencedRoots(select, conditions, orders);
+    Set<Path<?>> nullRejected = nullRejectedRoots(conditions);
+    Set<EntityPath<?>> fetchJoined = new HashSet<>();
+    for (Path<?> association : fetches) {
+      if (association instanceof EntityPath<?> toOne && optionalJoins.containsValue(toOne)) {
+        fetchJoined.add(toOne);
+      }
+    }
+
+    Map<Path<?>, Decision> decisions = new LinkedHashMap<>();
+    List<Path<?>> batchFetches = new ArrayList<>();
+    JPAQuery<T> query = queryFactory.select(select).from(from);
+
+    for (Map.Entry<Path<?>, EntityPath<?>> join : optionalJoins.entrySet()) {
+      Path<?> alias = join.getKey();
+      EntityPath<Object> association = (EntityPath<Object>) join.getValue();
+      boolean fetchJoin = fetchJoined.contains(association);
+      if (!fetchJoin && !referenced.contains(alias)) {
+        decisions.put(alias, rewriter.rewritten.contains(alias) ? Decision.FOREIGN_KEY : Decision.PRUNED);
+        continue;
+      }
+      boolean inner = nullRejected.contains(alias);
+      if (inner) {
+        query.join(association, (Path<Object>) alias);
+      } else {
+        query.leftJoin(association, (Path<Object>) alias);
+      }
+      if (fetchJoin) {
+        query.fetchJoin();
+      }
+      decisions.put(alias, fetchJoin ? Decision.FETCH_JOIN : inner ? Decision.INNER_JOIN : Decision.LEFT_JOIN);
+    }
+
+    for (Path<?> association : fetches) {
+      if (association instanceof EntityPath<?> toOne) {
+        if (!fetchJoined.contains(toOne)) {
+          query.leftJoin((EntityPath<Object>) toOne).fetchJoin();
+        }
+        decisions.put(association, Decision.FETCH_JOIN);
+      } else if (paged) {
+        batchFetches.add(association);
+        decisions.put(association, Decision.BATCH_FETCH);
+      } else {
+        query.leftJoin((CollectionExpression<?, Object>) association).fetchJoin();
+        decisions.put(association, Decision.FETCH_JOIN);
+      }
+    }
+
+    query.where(conditions.toArray(Predicate[]::new));
+    query.orderBy(orders.toArray(OrderSpecifier[]::new));
+
+    JoinPlan<T> plan = new JoinPlan<>(query, strategy(entityProjection, decisions), decisions, batchFetches);
+    log.debug("join plan {}", plan);
+    return plan;
+  }
+
+  //ForeignKeyRewriter 는 alias.id 를 같은 타입의 FK 경로로만 바꾸므로 정렬 대상 타입은 그대로다
+  @SuppressWarnings("unchecked")
+  private <O extends Comparable> OrderSpecifier<O> rewrite(OrderSpecifier<O> order, ForeignKeyRewriter rewriter) {
+    Expression<O> target = (Expression<O>) order.getTarget().accept(rewriter, null);
+    return new OrderSpecifier<>(order.getOrder(), target, order.getNullHandling());
+  }
+
+  private static Strategy strategy(boolean entityProjection, Map<Path<?>, Decision> decisions) {
+    if (!entityProjection) {
+      return Strategy.DTO_PROJECTION;
+    }
+    if (decisions.containsValue(Decision.BATCH_FETCH)) {
+      return Strategy.BATCH_FETCH;
+    }
+    return decisions.containsValue(Decision.FETCH_JOIN) ? Strategy.FETCH_JOIN : Strategy.ENTITY;
+  }
+
+  private Set<Path<?>> referencedRoots(Expression<?> select, List<Predicate> conditions,
+      List<OrderSpecifier<?>> orders) {
+    Set<Path<?>> roots = new HashSet<>();
+    QueryPaths.collectRoots(select, roots);
+    conditions.forEach(condition -> QueryPaths.collectRoots(condition, roots));
+    orders.forEach(order -> QueryPaths.collectRoots(order.getTarget(), roots));
+
+    //붙이는 join 의 연관관계가 다른 optional alias 에서 시작하면 그 join 도 필요하다 (team.xxx -> team)
+    boolean changed = true;
+    while (changed) {
+      changed = false;
+      for (Map.Entry<Path<?>, EntityPath<?>> join : optionalJoins.entrySet()) {
+        if (roots.contains(join.getKey())) {
+          changed |= roots.add(join.getValue().getRoot());
+        }
+      }
+    }
+    return roots;
+  }
+
+  /**
+   * and 로 묶인 최상위 조건 중 alias 컬럼의 null 을 거르는 조건이 있는 alias
+   */
+  private static Set<Path<?>> nullRejectedRoots(List<Predicate> conditions) {
+    Set<Path<?>> roots = new HashSet<>();
+    List<Expression<?>> conjuncts = new ArrayList<>(conditions);
+    while (!conjuncts.isEmpty()) {
+      Expression<?> conjunct = conjuncts.remove(conjuncts.size() - 1);
+      if (!(conjunct instanceof Operation<?> operation)) {
+        continue;
+      }
+      if (operation.getOperator() == Ops.AND) {
+        conjuncts.addAll(operation.getArgs());
+      } else if (NULL_REJECTING.contains(operation.getOperator()) && operation.getArg(0) instanceof Path<?> path) {
+        roots.add(path.getRoot());
+      }
+    }
+    return roots;
+  }
+
+  private String idAttribute(Class<?> entityType) {
+    return metamodel.entity(entityType).getSingularAttributes().stream()
+        .filter(SingularAttribute::isId)
+        .map(SingularAttribute::getName)
+        .findFirst()
+        .orElse(null);
+  }
+
+  /**
+   * optional join alias 의 id (team.id) 를 FK 컬럼 (member.team.id) 으로 바꾼다. Hibernate 는 FK 만 읽으면 join 하지 않는다.
+   */
+  private class ForeignKeyRewriter extends ReplaceVisitor<Void> {
+
+    private final Set<Path<?>> rewritten = new HashSet<>();
+
+    @Override
+    public Expression<?> visit(Path<?> expr, Void context) {
+      PathMetadata metadata = expr.getMetadata();
+      Path<?> parent = metadata.getParent();
+      if (parent != null && metadata.getPathType() == PathType.PROPERTY) {
+        EntityPath<?> association = optionalJoins.get(parent);
+        if (association != null && metadata.getName().equals(idAttribute(parent.getType()))) {
+          rewritten.add(parent);
+          return ExpressionUtils.path(expr.getType(), association, metadata.getName());
+        }
+      }
+      return super.visit(expr, context);
+    }
+  }
+}
@@ -0,0 +1,29 @@
+package study.querydsl.repository.support;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Member, Team 엔티티가 바뀌면 SubQueryRewriter 의 서브쿼리 값과 CountCache 의 totalCount 를 비운다. (커밋된 뒤)
+ * SubQueryRewriter 가 EntityManager 를 쓰므로 EntityManagerFactory 를 만드는 중에 바로 주입받지 않는다.
+ */
+public class QueryCacheListener {
+
+  private final ObjectProvider<SubQueryRewriter> subQueryRewriter;
+  private final ObjectProvider<CountCache> countCache;
+
+  public QueryCacheListener(ObjectProvider<SubQueryRewriter> subQueryRewriter, ObjectProvider<CountCache> countCache) {
+    this.subQueryRewriter = subQueryRewriter;
+    this.countCache = countCache;
+  }
+
+  @PostPersist
+  @PostUpdate
+  @PostRemove
+  public void changed(Object entity) {
+    subQueryRewriter.ifAvailable(SubQueryRewriter::clearAfterCommit);
+    countCache.ifAvailable(CountCache::clearAfterCommit);
+  }
+}
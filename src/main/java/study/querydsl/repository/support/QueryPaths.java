@@ -0,0 +1,154 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.core.types.Visitor;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 쿼리에서 실제로 참조되는 alias(root path)를 모으는 Visitor.
+ * join을 지워도 되는지 판단할 때 사용한다.
+ */
+final class QueryPaths implements Visitor<Void, Set<Path<?>>> {
+
+  private static final QueryPaths INSTANCE = new QueryPaths();
+
+  private QueryPaths() {
+  }
+
+  /**
+   * where, group by, having, join 조건에서 참조하는 root path 를 모은다.
+   * skip 으로 넘긴 join 은 대상 자신이 참조로 잡히지 않도록 제외한다.
+   */
+  static Set<Path<?>> referencedRoots(QueryMetadata metadata, boolean includeSelectAndOrder, JoinExpression skip) {
+    Set<Path<?>> roots = new HashSet<>();
+    for (JoinExpression join : metadata.getJoins()) {
+      if (join == skip) {
+        continue;
+      }
+      Expression<?> association = associationOf(join);
+      if (association != null && association != join.getTarget()) {
+        association.accept(INSTANCE, roots);
+      }
+      if (join.getCondition() != null) {
+        join.getCondition().accept(INSTANCE, roots);
+      }
+    }
+    if (skip != null && skip.getCondition() != null) {
+      skip.getCondition().accept(INSTANCE, roots);
+    }
+    accept(metadata.getWhere(), roots);
+    accept(metadata.getHaving(), roots);
+    for (Expression<?> groupBy : metadata.getGroupBy()) {
+      groupBy.accept(INSTANCE, roots);
+    }
+    if (includeSelectAndOrder) {
+      accept(metadata.getProjection(), roots);
+      for (OrderSpecifier<?> order : metadata.getOrderBy()) {
+        order.getTarget().accept(INSTANCE, roots);
+      }
+    }
+    return roots;
+  }
+
+  /**
+   * 식 하나에서 참조하는 root path 를 모은다.
+   */
+  static void collectRoots(Expression<?> expr, Set<Path<?>> roots) {
+    accept(expr, roots);
+  }
+
+  /**
+   * join(member.team, team) 형태면 member.team 을, 그 외에는 null 을 반환.
+   */
+  static Expression<?> associationOf(JoinExpression join) {
+    if (join.getTarget() instanceof Operation<?> operation && operation.getOperator() == Ops.ALIAS) {
+      return operation.getArg(0);
+    }
+    return null;
+  }
+
+  /**
+   * join(member.team, team) 형태면 alias 인 team 을, from(member) 형태면 member 를 반환.
+   */
+  static Expression<?> aliasOf(JoinExpression join) {
+    if (join.getTarget() instanceof Operation<?> operation && operation.getOperator() == Ops.ALIAS) {
+      return operation.getArg(1);
+    }
+    return join.getTarget();
+  }
+
+  /**
+   * ~ToOne 연관관계로의 join 인지. ~ToMany 는 row 수를 늘리므로 지우면 안된다.
+   */
+  static boolean isToOneAssociation(JoinExpression join) {
+    return associationOf(join) instanceof EntityPath<?>;
+  }
+
+  private static void accept(Expression<?> expr, Set<Path<?>> roots) {
+    if (expr != null) {
+      expr.accept(INSTANCE, roots);
+    }
+  }
+
+  @Override
+  public Void visit(Constant<?> expr, Set<Path<?>> roots) {
+    return null;
+  }
+
+  @Override
+  public Void visit(FactoryExpression<?> expr, Set<Path<?>> roots) {
+    for (Expression<?> arg : expr.getArgs()) {
+      arg.accept(this, roots);
+    }
+    return null;
+  }
+
+  @Override
+  public Void visit(Operation<?> expr, Set<Path<?>> roots) {
+    for (Expression<?> arg : expr.getArgs()) {
+      arg.accept(this, roots);
+    }
+    return null;
+  }
+
+  @Override
+  public Void visit(ParamExpression<?> expr, Set<Path<?>> roots) {
+    return null;
+  }
+
+  @Override
+  public Void visit(Path<?> expr, Set<Path<?>> roots) {
+    roots.add(expr.getRoot());
+    return null;
+  }
+
+  @Override
+  public Void visit(SubQueryExpression<?> expr, Set<Path<?>> roots) {
+    //서브쿼리 안에서 바깥 alias를 참조하는 경우(상관 서브쿼리)도 참조로 본다.
+    roots.addAll(referencedRoots(expr.getMetadata(), true, null));
+    return null;
+  }
+
+  @Override
+  public Void visit(TemplateExpression<?> expr, Set<Path<?>> roots) {
+    for (Object arg : expr.getArgs()) {
+      if (arg instanceof Expression<?> expression) {
+        expression.accept(this, roots);
+      }
+    }
+    return null;
+  }
+}
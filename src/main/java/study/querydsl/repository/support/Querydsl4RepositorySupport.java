@@ -8,6 +8,7 @@ import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.annotation.PostConstruct;
 import jakarta.persistence.EntityManager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.support.JpaEntityInformation;
@@ -18,6 +19,9 @@ import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.Assert;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
 /**
  * Querydsl 4.x 버전에 맞춘 Querydsl 지원 라이브러리
@@ -32,6 +36,9 @@ public abstract class Querydsl4RepositorySupport {
   private Querydsl querydsl;
   private EntityManager entityManager;
   private JPAQueryFactory queryFactory;
+  private AsyncQueries asyncQueries;
+  private Executor countQueryExecutor;
+  private SubQueryRewriter subQueryRewriter;
   public Querydsl4RepositorySupport(Class<?> domainClass) {
     Assert.notNull(domainClass, "Domain class must not be null!");
     this.domainClass = domainClass;
@@ -46,13 +53,32 @@ public abstract class Querydsl4RepositorySupport {
     this.entityManager = entityManager;
     this.querydsl = new Querydsl(entityManager, new
         PathBuilder<>(path.getType(), path.getMetadata()));
-    this.queryFactory = new JPAQueryFactory(entityManager);
+  }
+  //QuerydslConfig 의 공용 빈. fetch 마다 실행 시간/row 수가 기록된다. (QueryMetrics)
+  @Autowired
+  public void setQueryFactory(JPAQueryFactory queryFactory) {
+    this.queryFactory = queryFactory;
+  }
+  @Autowired
+  public void setAsyncQueries(AsyncQueries asyncQueries) {
+    this.asyncQueries = asyncQueries;
+  }
+  @Autowired
+  public void setCountQueryExecutor(@Qualifier("countQueryExecutor") Executor countQueryExecutor) {
+    this.countQueryExecutor = countQueryExecutor;
+  }
+  @Autowired
+  public void setSubQueryRewriter(SubQueryRewriter subQueryRewriter) {
+    this.subQueryRewriter = subQueryRewriter;
   }
   @PostConstruct
   public void validate() {
     Assert.notNull(entityManager, "EntityManager must not be null!");
     Assert.notNull(querydsl, "Querydsl must not be null!");
     Assert.notNull(queryFactory, "QueryFactory must not be null!");
+    Assert.notNull(asyncQueries, "AsyncQueries must not be null!");
+    Assert.notNull(countQueryExecutor, "CountQueryExecutor must not be null!");
+    Assert.notNull(subQueryRewriter, "SubQueryRewriter must not be null!");
   }
   protected JPAQueryFactory getQueryFactory() {
     return queryFactory;
@@ -69,19 +95,66 @@ public abstract class Querydsl4RepositorySupport {
   protected <T> JPAQuery<T> selectFrom(EntityPath<T> from) {
     return getQueryFactory().selectFrom(from);
   }
+  /**
+   * projection 과 조건에 필요한 join 만 붙이고, 연관관계를 fetch join / batch fetch 중 무엇으로 읽을지 정한다. (JoinPlanner)
+   */
+  protected <T> JoinPlanner<T> plan(Expression<T> projection) {
+    return new JoinPlanner<>(getQueryFactory(), getEntityManager().getMetamodel(), projection);
+  }
+  /**
+   * 바깥 쿼리와 상관 없는 집계/in 서브쿼리를 미리 실행한 값으로 바꾼다. (SubQueryRewriter)
+   */
+  protected <T> JPAQuery<T> rewriteSubQueries(JPAQuery<T> query) {
+    return subQueryRewriter.rewrite(query);
+  }
+  /**
+   * count 쿼리는 content 쿼리에서 order by, fetch join, 불필요한 left join 을 제거해서 자동으로 만든다.
+   */
   protected <T> Page<T> applyPagination(Pageable pageable,
       Function<JPAQueryFactory, JPAQuery> contentQuery) {
     JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
+    CountQuery countQuery = CountQuery.derive(jpaQuery);
     List<T> content = getQuerydsl().applyPagination(pageable, jpaQuery).fetch();
     return PageableExecutionUtils.getPage(content, pageable,
-        jpaQuery::fetchCount);
+        () -> countQuery.fetch(getEntityManager()));
   }
   protected <T> Page<T> applyPagination(Pageable pageable,
       Function<JPAQueryFactory, JPAQuery> contentQuery, Function<JPAQueryFactory,
       JPAQuery> countQuery) {
     JPAQuery jpaContentQuery = contentQuery.apply(getQueryFactory());
     List<T> content = getQuerydsl().applyPagination(pageable, jpaContentQuery).fetch();
-    JPAQuery countResult = countQuery.apply(getQueryFactory());
-    return PageableExecutionUtils.getPage(content, pageable, countResult::fetchCount);
+    CountQuery countResult = CountQuery.derive(countQuery.apply(getQueryFactory()));
+    return PageableExecutionUtils.getPage(content, pageable,
+        () -> countResult.fetch(getEntityManager()));
+  }
+  /**
+   * count 쿼리를 별도 커넥션에서 content 쿼리와 동시에 실행한다. 응답 시간이 (content + count) 에서 max(content, count) 로 줄어든다.
+   * count 는 countQueryExecutor 스레드의 읽기 전용 트랜잭션에서 실행되므로(AsyncQueries) content 와 같이 replica 로 가고,
+   * ReadYourWrites 면 primary 로 간다. 현재 트랜잭션에서 커밋하지 않은 변경은 반영되지 않는다.
+   */
+  protected <T> Page<T> applyPaginationWithParallelCount(Pageable pageable,
+      Function<JPAQueryFactory, JPAQuery> contentQuery) {
+    JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
+    CountQuery countQuery = CountQuery.derive(jpaQuery);
+    CompletableFuture<Long> total = asyncQueries.supply(() -> countQuery.fetch(getEntityManager()), countQueryExecutor);
+
+    List<T> content;
+    try {
+      content = getQuerydsl().applyPagination(pageable, jpaQuery).fetch();
+    } catch (RuntimeException e) {
+      total.cancel(true);
+      throw e;
+    }
+    return PageableExecutionUtils.getPage(content, pageable, () -> join(total));
+  }
+  private static long join(CompletableFuture<Long> total) {
+    try {
+      return total.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
   }
 }
\ No newline at end of file
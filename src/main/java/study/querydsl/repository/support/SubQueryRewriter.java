@@ -0,0 +1,280 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.support.ReplaceVisitor;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Operator;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPAQuery;
+import jakarta.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.repository.MemberRangeChangedEvent;
+
+/**
+ * 바깥 쿼리를 참조하지 않는(상관 없는) 서브쿼리를 먼저 한번 실행해서 값으로 바꿔 넣는다.
+ *
+ * <ul>
+ *   <li>집계 하나만 조회하는 서브쿼리 (max/min/avg/sum/count) : 결과 값을 파라미터로. 비교 대상과 타입이 달라도 같은 결과가 나오도록
+ *   cast(? as 집계 타입) 으로 넣는다. age >= (select avg(age) ...) -> age >= cast(? as Double)</li>
+ *   <li>in / not in 서브쿼리 : distinct 값 목록을 파라미터로. 값이 max-in-values 개를 넘거나 null 이 섞여 있으면 그대로 둔다.</li>
+ * </ul>
+ * 바꾼 값은 TTL 동안 같은 서브쿼리(JPQL + 파라미터)끼리 재사용하므로, 바깥 쿼리를 여러 번 실행해도 서브쿼리는 TTL 마다 한번만 실행된다.
+ * member/team 이 바뀌면 MemberPageCache 처럼 커밋된 뒤에 전부 비운다. (QueryCacheListener, MemberRangeChangedEvent)
+ * 현재 트랜잭션에 아직 커밋하지 않은 변경이 있으면 그 변경이 보여야 하므로 캐시를 쓰지 않고 매번 실행한다. (ttl 0 이면 항상 매번 실행)
+ * JPA 를 거치지 않은 변경(JdbcTemplate 등)은 TTL 이 지날 때까지 이전 값으로 조회된다.
+ *
+ * 상관 서브쿼리(memberSub.team = member.team)는 row 마다 값이 달라서 바꾸지 않는다.
+ * Querydsl JPQL 로는 from 절 서브쿼리(derived table)나 CTE 를 만들 수 없으므로 별도 쿼리로 미리 계산하는 방식만 쓴다.
+ */
+@Slf4j
+@Component
+public class SubQueryRewriter {
+
+  private static final Set<Operator> SCALAR_AGGREGATES = Set.of(
+      Ops.AggOps.MAX_AGG, Ops.AggOps.MIN_AGG, Ops.AggOps.AVG_AGG, Ops.AggOps.SUM_AGG,
+      Ops.AggOps.COUNT_AGG, Ops.AggOps.COUNT_DISTINCT_AGG);
+
+  //집계 결과 타입 -> cast 에 쓸 JPQL 타입
+  private static final Map<Class<?>, String> CAST_TYPES = Map.of(
+      Integer.class, "Integer", Long.class, "Long", Double.class, "Double", BigDecimal.class, "BigDecimal");
+
+  private final EntityManager em;
+  private final long ttlNanos;
+  private final int maxSize;
+  private final int maxInValues;
+  private final ConcurrentHashMap<List<Object>, Entry> cache = new ConcurrentHashMap<>();
+  private final AtomicLong version = new AtomicLong();
+
+  public SubQueryRewriter(EntityManager em,
+      @Value("${querydsl.subquery-cache.ttl:5s}") Duration ttl,
+      @Value("${querydsl.subquery-cache.max-size:1000}") int maxSize,
+      @Value("${querydsl.subquery-cache.max-in-values:1000}") int maxInValues) {
+    this.em = em;
+    this.ttlNanos = ttl.toNanos();
+    this.maxSize = maxSize;
+    this.maxInValues = maxInValues;
+  }
+
+  /**
+   * where, select 절의 서브쿼리를 값으로 바꾼다. 같은 쿼리 객체를 돌려준다.
+   * having 절은 QueryMetadata 에서 비우고 다시 넣을 수 없으므로 그대로 둔다.
+   */
+  public <T> JPAQuery<T> rewrite(JPAQuery<T> query) {
+    QueryMetadata metadata = query.getMetadata();
+    Rewriter rewriter = new Rewriter(metadata.getParams());
+
+    Predicate where = metadata.getWhere();
+    if (where != null) {
+      Predicate rewritten = (Predicate) where.accept(rewriter, null);
+      if (rewritten != where) {
+        metadata.clearWhere();
+        metadata.addWhere(rewritten);
+      }
+    }
+    Expression<?> projection = metadata.getProjection();
+    if (projection != null) {
+      Expression<?> rewritten = projection.accept(rewriter, null);
+      if (rewritten != projection) {
+        metadata.setProjection(rewritten);
+      }
+    }
+    return query;
+  }
+
+  public void clear() {
+    version.incrementAndGet();
+    cache.clear();
+  }
+
+  /**
+   * 트랜잭션 안이면 커밋된 뒤에 한번만, 밖이면 바로 비운다. 롤백되면 비우지 않는다. (MemberPageCache 와 같음)
+   * 커밋될 때까지는 이 트랜잭션에서 캐시를 쓰지 않는다. (hasPendingChanges)
+   */
+  public void clearAfterCommit() {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      clear();
+      return;
+    }
+    if (TransactionSynchronizationManager.hasResource(this)) {
+      return;
+    }
+    TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        clear();
+      }
+
+      @Override
+      public void afterCompletion(int status) {
+        TransactionSynchronizationManager.unbindResource(SubQueryRewriter.this);
+      }
+    });
+  }
+
+  //벌크 연산은 청크마다 별도 트랜잭션으로 이미 커밋된 뒤에 알려준다
+  @EventListener
+  public void onRangeChanged(MemberRangeChangedEvent event) {
+    clear();
+  }
+
+  private Object cached(String kind, QueryMetadata subQuery, Map<ParamExpression<?>, Object> params,
+      Supplier<Object> loader) {
+    if (ttlNanos <= 0 || hasPendingChanges()) {
+      return loader.get();
+    }
+    JPQLSerializer serializer = new JPQLSerializer(JPQLTemplates.DEFAULT);
+    serializer.serialize(subQuery, false, null);
+    List<Object> key = Arrays.asList(kind, serializer.toString(), serializer.getConstants(), params);
+
+    long now = System.nanoTime();
+    long currentVersion = version.get();
+    Entry entry = cache.get(key);
+    if (entry != null && entry.version == currentVersion && entry.expiresAt - now > 0) {
+      return entry.value;
+    }
+
+    Object value = loader.get();
+    if (cache.size() >= maxSize) {
+      cache.values().removeIf(e -> e.expiresAt - now <= 0);
+      if (cache.size() >= maxSize) {
+        cache.clear();
+      }
+    }
+    if (version.get() == currentVersion) { //읽는 동안 변경이 커밋됐으면 저장하지 않는다
+      cache.put(key, new Entry(value, currentVersion, now + ttlNanos));
+    }
+    return value;
+  }
+
+  /**
+   * 이 트랜잭션에서 member/team 을 이미 flush 했거나(clearAfterCommit 등록됨) 영속성 컨텍스트에 flush 할 변경이 남아있는지.
+   * 다른 트랜잭션에는 아직 보이지 않는 값이므로 캐시에서 꺼내지도, 캐시에 넣지도 않는다.
+   */
+  private boolean hasPendingChanges() {
+    if (TransactionSynchronizationManager.hasResource(this)) {
+      return true;
+    }
+    return TransactionSynchronizationManager.isActualTransactionActive() && em.unwrap(Session.class).isDirty();
+  }
+
+  private JPAQuery<Object> standalone(QueryMetadata subQuery, Map<ParamExpression<?>, Object> params) {
+    QueryMetadata metadata = subQuery.clone();
+    params.forEach((param, value) -> setParam(metadata, param, value));
+    return new JPAQuery<>(em, metadata);
+  }
+
+  private static <P> void setParam(QueryMetadata metadata, ParamExpression<P> param, Object value) {
+    metadata.setParam(param, param.getType().cast(value));
+  }
+
+  /**
+   * 서브쿼리 안에서 바깥 alias 를 참조하는지. 서브쿼리 자신의 from/join alias 외의 root 가 보이면 상관 서브쿼리다.
+   */
+  private static boolean isCorrelated(QueryMetadata subQuery) {
+    Set<Path<?>> own = new HashSet<>();
+    for (JoinExpression join : subQuery.getJoins()) {
+      own.add((Path<?>) QueryPaths.aliasOf(join));
+    }
+    Set<Path<?>> referenced = QueryPaths.referencedRoots(subQuery, true, null);
+    referenced.removeAll(own);
+    return !referenced.isEmpty();
+  }
+
+  private static boolean isScalarAggregate(QueryMetadata subQuery) {
+    Expression<?> projection = subQuery.getProjection();
+    //JPAExpressions.select(숫자식) 은 결과 타입 변환용 NumberConversion 으로 한번 감싸져 있다
+    if (projection instanceof FactoryExpression<?> factory && factory.getArgs().size() == 1) {
+      projection = factory.getArgs().get(0);
+    }
+    return projection instanceof Operation<?> operation
+        && SCALAR_AGGREGATES.contains(operation.getOperator())
+        && subQuery.getGroupBy().isEmpty();
+  }
+
+  private class Rewriter extends ReplaceVisitor<Void> {
+
+    private final Map<ParamExpression<?>, Object> params;
+
+    Rewriter(Map<ParamExpression<?>, Object> params) {
+      this.params = params;
+    }
+
+    @Override
+    public Expression<?> visit(SubQueryExpression<?> expr, Void context) {
+      QueryMetadata subQuery = expr.getMetadata();
+      if (!isScalarAggregate(subQuery) || isCorrelated(subQuery)) {
+        return expr;
+      }
+      Object value = cached("scalar", subQuery, params, () -> standalone(subQuery, params).fetchOne());
+      //빈 테이블의 max 처럼 null 이면 그대로 DB 에 맡긴다. sum(Integer) 는 Long 으로 오므로 타입은 실제 값 기준
+      String castType = value == null ? null : CAST_TYPES.get(value.getClass());
+      if (castType == null) {
+        return expr;
+      }
+      log.debug("subquery {} -> {}", subQuery.getProjection(), value);
+      return Expressions.template(expr.getType(), "cast({0} as " + castType + ")", Expressions.constant(value));
+    }
+
+    @Override
+    public Expression<?> visit(Operation<?> expr, Void context) {
+      if ((expr.getOperator() == Ops.IN || expr.getOperator() == Ops.NOT_IN)
+          && expr.getArg(1) instanceof SubQueryExpression<?> subQueryExpression) {
+        QueryMetadata subQuery = subQueryExpression.getMetadata();
+        if (subQuery.getProjection() instanceof Path<?> && subQuery.getGroupBy().isEmpty() && !isCorrelated(subQuery)) {
+          List<?> values = (List<?>) cached("in", subQuery, params, () -> {
+            JPAQuery<Object> distinct = standalone(subQuery, params);
+            distinct.getMetadata().setDistinct(true);
+            return distinct.limit(maxInValues + 1L).fetch();
+          });
+          if (values.size() <= maxInValues && values.stream().allMatch(Objects::nonNull)) {
+            log.debug("subquery {} -> {} values", subQuery.getProjection(), values.size());
+            return ExpressionUtils.predicate(expr.getOperator(), expr.getArg(0).accept(this, context),
+                Expressions.constant(values));
+          }
+        }
+      }
+      return super.visit(expr, context);
+    }
+  }
+
+  private static class Entry {
+    private final Object value;
+    private final long version;
+    private final long expiresAt;
+
+    Entry(Object value, long version, long expiresAt) {
+      this.value = value;
+      this.version = version;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
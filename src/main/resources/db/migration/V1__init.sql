@@ -0,0 +1,24 @@
+-- ddl-auto=create 가 만들던 스키마 그대로 (인덱스 추가 전)
+create sequence hello_seq start with 1 increment by 50;
+create sequence member_seq start with 1 increment by 100;
+create sequence team_seq start with 1 increment by 100;
+
+create table hello (
+    id bigint not null,
+    primary key (id)
+);
+
+create table team (
+    team_id bigint not null,
+    name varchar(255),
+    primary key (team_id)
+);
+
+create table member (
+    age integer not null,
+    member_id bigint not null,
+    team_id bigint,
+    username varchar(255),
+    primary key (member_id),
+    constraint fk_member_team foreign key (team_id) references team (team_id)
+);
@@ -0,0 +1,8 @@
+-- member 검색 조건(search, searchPage*, searchSlice)용 인덱스
+-- teamName + age 범위: team 은 이름으로 한 건을 찾고(uk_team_name), member 는 team_id 로 좁힌 뒤 age 범위만 읽는다.
+-- team_id 만 있는 기존 FK 인덱스의 역할도 대신한다.
+create index idx_member_team_age on member (team_id, age);
+create index idx_member_username on member (username);
+
+-- 같은 이름의 팀이 있으면 먼저 정리해야 한다.
+alter table team add constraint uk_team_name unique (name);
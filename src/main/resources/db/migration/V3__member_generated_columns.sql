@@ -0,0 +1,10 @@
+-- QuerydslBasicTest 의 case(나이 구간), concat(username_age) 을 조회마다 계산하지 않도록 DB 가 계산해서 저장하는 컬럼
+-- 식은 Member.AGE_BUCKET_SQL / DISPLAY_KEY_SQL 과 같게 유지한다. age, username 이 바뀌면 DB 가 다시 계산한다.
+alter table member add column age_bucket varchar(16) generated always as
+    (case when age between 0 and 20 then 'AGE_0_20' when age between 21 and 30 then 'AGE_21_30' else 'OTHER' end);
+alter table member add column display_key varchar(267) generated always as
+    (username || '_' || cast(age as varchar(11)));
+
+-- 나이 구간으로 거르고 display_key 순으로 읽을 때 정렬 없이 인덱스 순서대로 읽는다.
+create index idx_member_age_bucket on member (age_bucket, display_key);
+create index idx_member_display_key on member (display_key);
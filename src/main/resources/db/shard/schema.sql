@@ -0,0 +1,14 @@
+create table if not exists team (
+    team_id bigint not null,
+    name varchar(255),
+    primary key (team_id)
+);
+
+create table if not exists member (
+    member_id bigint not null,
+    age integer not null,
+    team_id bigint,
+    username varchar(255),
+    primary key (member_id),
+    foreign key (team_id) references team (team_id)
+);
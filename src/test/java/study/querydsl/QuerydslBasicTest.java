@@ -16,6 +16,7 @@ import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.PersistenceUnit;
 import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -50,6 +51,7 @@ public class QuerydslBasicTest {
     @BeforeEach//각 테스트 실행전에 데이터 미리 세팅 위해서
     public void before(){
         queryFactory = new JPAQueryFactory(em);
+        deleteAll(); //@Rollback(false) 라서 이전 테스트 데이터가 커밋되어 남아있음 (team.name 은 유일)
 
         Team teamA = new Team("teamA");
         Team teamB = new Team("teamB");
@@ -67,6 +69,17 @@ public class QuerydslBasicTest {
         em.persist(member4);
     }
 
+    @AfterEach //커밋된 데이터가 다른 테스트 클래스에 섞이지 않도록 정리
+    public void after(){
+        deleteAll();
+    }
+
+    private void deleteAll() {
+        em.createQuery("delete from Member").executeUpdate();
+        em.createQuery("delete from Team").executeUpdate();
+        em.clear();
+    }
+
     @Test
     public void versionJPQL(){
         //member1을 찾아라.
@@ -0,0 +1,84 @@
+package study.querydsl.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class AdmissionLimitFilterTest {
+
+  SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  AdmissionLimitFilter filter = new AdmissionLimitFilter(meterRegistry, Set.of("/v2/members"), 1, Duration.ofMillis(50));
+
+  @Test
+  public void rejectWhenFull() throws Exception {
+    CountDownLatch entered = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CompletableFuture<Void> holding = CompletableFuture.runAsync(() -> {
+      try {
+        filter.doFilter(new MockHttpServletRequest("GET", "/v2/members"), new MockHttpServletResponse(),
+            (request, response) -> {
+              entered.countDown();
+              await(release);
+            });
+      } catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(meterRegistry.get("querydsl.admission.in-flight").gauge().value()).isEqualTo(1.0);
+
+    //자리가 없으면 timeout 후 503
+    MockHttpServletResponse rejected = new MockHttpServletResponse();
+    filter.doFilter(new MockHttpServletRequest("GET", "/v2/members"), rejected, new MockFilterChain());
+    assertThat(rejected.getStatus()).isEqualTo(503);
+
+    //제한 대상이 아닌 경로는 그대로 통과
+    MockHttpServletResponse other = new MockHttpServletResponse();
+    filter.doFilter(new MockHttpServletRequest("GET", "/hello"), other, new MockFilterChain());
+    assertThat(other.getStatus()).isEqualTo(200);
+
+    release.countDown();
+    holding.get(5, TimeUnit.SECONDS);
+
+    MockHttpServletResponse admitted = new MockHttpServletResponse();
+    filter.doFilter(new MockHttpServletRequest("GET", "/v2/members"), admitted, new MockFilterChain());
+    assertThat(admitted.getStatus()).isEqualTo(200);
+
+    assertThat(meterRegistry.get("querydsl.admission.wait").tag("outcome", "acquired").timer().count()).isEqualTo(2);
+    assertThat(meterRegistry.get("querydsl.admission.wait").tag("outcome", "rejected").timer().count()).isEqualTo(1);
+    assertThat(meterRegistry.get("querydsl.admission.in-flight").gauge().value()).isEqualTo(0.0);
+  }
+
+  @Test
+  public void holdPermitUntilAsyncCompletes() throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v2/members");
+    request.setAsyncSupported(true);
+    filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+
+    //요청 스레드는 돌아왔지만 조회는 아직 진행 중이므로 자리를 계속 차지한다
+    assertThat(meterRegistry.get("querydsl.admission.in-flight").gauge().value()).isEqualTo(1.0);
+    MockHttpServletResponse rejected = new MockHttpServletResponse();
+    filter.doFilter(new MockHttpServletRequest("GET", "/v2/members"), rejected, new MockFilterChain());
+    assertThat(rejected.getStatus()).isEqualTo(503);
+
+    request.getAsyncContext().complete();
+    assertThat(meterRegistry.get("querydsl.admission.in-flight").gauge().value()).isEqualTo(0.0);
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,114 @@
+package study.querydsl.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import jakarta.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.MemberTestRepository;
+
+/**
+ * primary / replica 를 서로 다른 H2 메모리 DB 로 띄워서 어느 쪽에서 읽었는지 데이터로 구분한다.
+ * 실제 복제는 없으므로 replica 스키마와 데이터는 테스트에서 직접 넣는다.
+ */
+@SpringBootTest(properties = {
+    "querydsl.datasource.routing.enabled=true",
+    "spring.datasource.url=jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1",
+    "querydsl.datasource.replica.url=" + DataSourceRoutingTest.REPLICA_URL
+})
+class DataSourceRoutingTest {
+
+  static final String REPLICA_URL = "jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1";
+
+  @Autowired
+  EntityManager em;
+
+  @Autowired
+  TransactionTemplate transactionTemplate;
+
+  @Autowired
+  MemberJpaRepository memberJpaRepository;
+
+  @Autowired
+  MemberRepository memberRepository;
+
+  @Autowired
+  MemberTestRepository memberTestRepository;
+
+  JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+  @BeforeEach
+  public void before(){
+    replica.execute("create table if not exists team (team_id bigint primary key, name varchar(255))");
+    replica.execute("create table if not exists member (member_id bigint primary key, age integer not null,"
+        + " team_id bigint, username varchar(255), age_bucket varchar(16), display_key varchar(267))");
+    replica.update("insert into member (member_id, age, username) values (1, 10, 'replicaMember')");
+
+    memberJpaRepository.save(new Member("primaryMember", 20)); //쓰기는 primary
+  }
+
+  @AfterEach
+  public void after(){
+    replica.execute("delete from member");
+    transactionTemplate.executeWithoutResult(status -> em.createQuery("delete from Member").executeUpdate());
+  }
+
+  @Test
+  public void readOnlyGoesToReplica(){
+    MemberSearchCondition condition = new MemberSearchCondition();
+
+    assertThat(memberJpaRepository.search(condition)).extracting("username").containsExactly("replicaMember");
+    assertThat(memberRepository.search(condition)).extracting("username").containsExactly("replicaMember");
+
+    //읽기 전용이 아닌 트랜잭션 안에서는 같은 커넥션(primary)을 계속 사용
+    List<MemberTeamDto> inWriteTransaction = transactionTemplate.execute(status -> memberJpaRepository.search(condition));
+    assertThat(inWriteTransaction).extracting("username").containsExactly("primaryMember");
+  }
+
+  @Test
+  public void parallelCountFollowsRouting(){
+    replica.update("insert into member (member_id, age, username) values (2, 20, 'replicaMember2')");
+    PageRequest firstPage = PageRequest.of(0, 1);
+
+    //content 와 count 모두 replica (2명)
+    Page<Member> page = memberTestRepository.applyPaginationWithParallelCount(new MemberSearchCondition(), firstPage);
+    assertThat(page.getContent()).extracting("username").containsExactly("replicaMember");
+    assertThat(page.getTotalElements()).isEqualTo(2);
+
+    //ReadYourWrites 면 count 도 primary (1명)
+    Page<Member> primary = ReadYourWrites.call(
+        () -> memberTestRepository.applyPaginationWithParallelCount(new MemberSearchCondition(), PageRequest.of(0, 1)));
+    assertThat(primary.getContent()).extracting("username").containsExactly("primaryMember");
+    assertThat(primary.getTotalElements()).isEqualTo(1);
+  }
+
+  @Test
+  public void readYourWrites() throws Exception {
+    try (ReadYourWrites.Scope scope = ReadYourWrites.open()) {
+      assertThat(memberJpaRepository.search(new MemberSearchCondition()))
+          .extracting("username").containsExactly("primaryMember");
+      //비동기 조회도 작업 스레드에서 primary 로
+      assertThat(memberRepository.searchAsync(new MemberSearchCondition()).get(5, TimeUnit.SECONDS))
+          .extracting("username").containsExactly("primaryMember");
+    }
+    assertThat(memberRepository.searchAsync(new MemberSearchCondition()).get(5, TimeUnit.SECONDS))
+        .extracting("username").containsExactly("replicaMember");
+    assertThat(memberJpaRepository.search(new MemberSearchCondition()))
+        .extracting("username").containsExactly("replicaMember");
+  }
+}
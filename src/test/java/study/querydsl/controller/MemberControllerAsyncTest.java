@@ -0,0 +1,71 @@
+package study.querydsl.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:controllerasync;DB_CLOSE_DELAY=-1") //컨텍스트가 따로 뜨므로 공용 DB 스키마를 다시 만들지 않도록
+@AutoConfigureMockMvc
+class MemberControllerAsyncTest {
+
+  @Autowired
+  MockMvc mockMvc;
+
+  @Autowired
+  EntityManager em;
+
+  @Autowired
+  TransactionTemplate transactionTemplate;
+
+  @BeforeEach
+  public void before(){
+    transactionTemplate.executeWithoutResult(status -> {
+      Team teamA = new Team("teamA");
+      Team teamB = new Team("teamB");
+      em.persist(teamA);
+      em.persist(teamB);
+      for (int i = 0; i < 4; i++) {
+        em.persist(new Member("member" + i, i * 10, i % 2 == 0 ? teamA : teamB));
+      }
+    });
+  }
+
+  @AfterEach
+  public void after(){
+    transactionTemplate.executeWithoutResult(status -> {
+      em.createQuery("delete from Member").executeUpdate();
+      em.createQuery("delete from Team").executeUpdate();
+    });
+  }
+
+  @Test
+  public void summaryReleasesRequestThread() throws Exception {
+    MvcResult started = mockMvc.perform(get("/v3/members/summary?ageGoe=10&page=0&size=2"))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    mockMvc.perform(asyncDispatch(started))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.page.content.length()").value(2))
+        .andExpect(jsonPath("$.page.totalElements").value(3))
+        .andExpect(jsonPath("$.teams[0].teamName").value("teamA"))
+        .andExpect(jsonPath("$.teams[0].count").value(1))
+        .andExpect(jsonPath("$.teams[1].teamName").value("teamB"))
+        .andExpect(jsonPath("$.teams[1].count").value(2));
+  }
+}
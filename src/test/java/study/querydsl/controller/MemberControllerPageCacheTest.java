@@ -0,0 +1,132 @@
+package study.querydsl.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static study.querydsl.entity.QMember.member;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.monitoring.QueryCountListener;
+import study.querydsl.repository.MemberBulkRepository;
+import study.querydsl.repository.MemberPageCache;
+
+@SpringBootTest(properties = {
+    "querydsl.page-cache.ttl=1m",
+    "spring.datasource.url=jdbc:h2:mem:pagecache;DB_CLOSE_DELAY=-1" //컨텍스트가 따로 뜨므로 공용 DB 스키마를 다시 만들지 않도록
+})
+@AutoConfigureMockMvc
+class MemberControllerPageCacheTest {
+
+  static final String URL = "/v3/members?teamName=teamA&page=0&size=2";
+
+  @Autowired
+  MockMvc mockMvc;
+
+  @Autowired
+  EntityManager em;
+
+  @Autowired
+  TransactionTemplate transactionTemplate;
+
+  @Autowired
+  MemberBulkRepository memberBulkRepository;
+
+  @Autowired
+  MemberPageCache pageCache;
+
+  @Autowired
+  QueryCountListener queryCountListener;
+
+  @BeforeEach
+  public void before(){
+    transactionTemplate.executeWithoutResult(status -> {
+      Team teamA = new Team("teamA");
+      em.persist(teamA);
+      for (int i = 0; i < 3; i++) {
+        em.persist(new Member("member" + i, i * 10, teamA));
+      }
+    });
+    pageCache.invalidate();
+  }
+
+  @AfterEach
+  public void after(){
+    transactionTemplate.executeWithoutResult(status -> {
+      em.createQuery("delete from Member").executeUpdate();
+      em.createQuery("delete from Team").executeUpdate();
+    });
+  }
+
+  @Test
+  public void notModifiedWithoutDatabase() throws Exception {
+    String etag = fetch().getResponse().getHeader(HttpHeaders.ETAG);
+
+    long before = queryCountListener.currentCount();
+    mockMvc.perform(get(URL).header(HttpHeaders.IF_NONE_MATCH, etag))
+        .andExpect(status().isNotModified());
+    mockMvc.perform(get(URL))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.totalElements").value(3));
+    assertThat(queryCountListener.currentCount() - before).isZero(); //304 도, 캐시된 페이지도 DB 를 보지 않음
+    assertThat(pageCache.getHitCount()).isPositive();
+  }
+
+  @Test
+  public void invalidatedAfterCommit() throws Exception {
+    String etag = fetch().getResponse().getHeader(HttpHeaders.ETAG);
+
+    transactionTemplate.executeWithoutResult(status -> {
+      Team teamA = em.createQuery("select t from Team t where t.name = 'teamA'", Team.class).getSingleResult();
+      em.persist(new Member("member3", 30, teamA));
+    });
+
+    mockMvc.perform(get(URL).header(HttpHeaders.IF_NONE_MATCH, etag))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.totalElements").value(4));
+  }
+
+  @Test
+  public void notInvalidatedOnRollback() throws Exception {
+    String etag = fetch().getResponse().getHeader(HttpHeaders.ETAG);
+
+    transactionTemplate.executeWithoutResult(status -> {
+      Team teamA = em.createQuery("select t from Team t where t.name = 'teamA'", Team.class).getSingleResult();
+      em.persist(new Member("member3", 30, teamA));
+      em.flush();
+      status.setRollbackOnly();
+    });
+
+    mockMvc.perform(get(URL).header(HttpHeaders.IF_NONE_MATCH, etag))
+        .andExpect(status().isNotModified());
+  }
+
+  @Test
+  public void invalidatedByBulkUpdate() throws Exception {
+    fetch();
+
+    memberBulkRepository.update(member.age.goe(0), update -> update.set(member.age, 99), 100, null);
+
+    mockMvc.perform(get(URL))
+        .andExpect(jsonPath("$.content[0].age").value(99));
+  }
+
+  private MvcResult fetch() throws Exception {
+    return mockMvc.perform(get(URL))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.totalElements").value(3))
+        .andReturn();
+  }
+}
@@ -0,0 +1,68 @@
+package study.querydsl.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+@SpringBootTest(properties = {
+    "spring.data.web.pageable.max-page-size=2",
+    "spring.datasource.url=jdbc:h2:mem:controllerslice;DB_CLOSE_DELAY=-1" //컨텍스트가 따로 뜨므로 공용 DB 스키마를 다시 만들지 않도록
+})
+@AutoConfigureMockMvc
+class MemberControllerSliceTest {
+
+  @Autowired
+  MockMvc mockMvc;
+
+  @Autowired
+  EntityManager em;
+
+  @Autowired
+  TransactionTemplate transactionTemplate;
+
+  @BeforeEach
+  public void before(){
+    transactionTemplate.executeWithoutResult(status -> {
+      Team teamA = new Team("teamA");
+      em.persist(teamA);
+      for (int i = 0; i < 3; i++) {
+        em.persist(new Member("member" + i, i * 10, teamA));
+      }
+    });
+  }
+
+  @AfterEach
+  public void after(){
+    transactionTemplate.executeWithoutResult(status -> {
+      em.createQuery("delete from Member").executeUpdate();
+      em.createQuery("delete from Team").executeUpdate();
+    });
+  }
+
+  @Test
+  public void sizeClampedToMaxPageSize() throws Exception {
+    mockMvc.perform(get("/v4/members?size=1000"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content.length()").value(2))
+        .andExpect(jsonPath("$.hasNext").value(true));
+  }
+
+  @Test
+  public void badRequest() throws Exception {
+    mockMvc.perform(get("/v4/members?size=0")).andExpect(status().isBadRequest());
+    mockMvc.perform(get("/v4/members?cursor=!!!")).andExpect(status().isBadRequest()); //Base64 아님
+    mockMvc.perform(get("/v4/members?cursor=AAAA")).andExpect(status().isBadRequest()); //길이가 다름
+  }
+}
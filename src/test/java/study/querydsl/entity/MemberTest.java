@@ -1,12 +1,17 @@
 package study.querydsl.entity;
 
 import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.Commit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
 
@@ -46,4 +51,30 @@ class MemberTest {
 
         assertThat(members.size()).isEqualTo(4);
     }
-}
\ No newline at end of file
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    public void teamSecondLevelCache(){
+        //READ_WRITE 캐시는 커밋된 값만, 그 이후에 시작한 트랜잭션에서만 보이므로 트랜잭션을 따로 나눠서 확인
+        TransactionTemplate newTransaction = new TransactionTemplate(transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        Long teamId = newTransaction.execute(status -> {
+            Team teamA = new Team("cachedTeam");
+            em.persist(teamA);
+            return teamA.getId();
+        });
+
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        long hitCount = statistics.getDomainDataRegionStatistics("team").getHitCount();
+
+        Team findTeam = newTransaction.execute(status -> em.find(Team.class, teamId)); //2차 캐시에서 조회
+
+        assertThat(findTeam.getName()).isEqualTo("cachedTeam");
+        assertThat(statistics.getDomainDataRegionStatistics("team").getHitCount()).isEqualTo(hitCount + 1);
+
+        newTransaction.executeWithoutResult(status -> em.remove(em.find(Team.class, teamId)));
+    }
+}
@@ -0,0 +1,64 @@
+package study.querydsl.entity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import jakarta.persistence.EntityManager;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * db/migration 스크립트로 만든 스키마가 엔티티 매핑과 맞는지 확인한다. (ddl-auto=validate)
+ * Flyway 대신 같은 스크립트를 순서대로 spring.sql.init 으로 실행한다.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:migration;DB_CLOSE_DELAY=-1",
+    "spring.jpa.hibernate.ddl-auto=validate",
+    "spring.sql.init.mode=always",
+    "spring.sql.init.schema-locations=classpath:db/migration/V1__init.sql,classpath:db/migration/V2__member_search_indexes.sql,"
+        + "classpath:db/migration/V3__member_generated_columns.sql"
+})
+@Transactional
+class SchemaMigrationTest {
+
+  @Autowired
+  EntityManager em;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Test
+  public void searchIndexesCreated(){
+    List<String> indexes = jdbcTemplate.queryForList(
+        "select index_name from information_schema.indexes where table_name in ('MEMBER', 'TEAM')", String.class);
+
+    assertThat(indexes).contains("IDX_MEMBER_TEAM_AGE", "IDX_MEMBER_USERNAME");
+  }
+
+  @Test
+  public void generatedColumns(){
+    jdbcTemplate.update("insert into member (member_id, username, age) values (?, ?, ?)", 9999L, "member1", 25);
+    jdbcTemplate.update("update member set age = 35 where member_id = ?", 9999L);
+
+    assertThat(jdbcTemplate.queryForMap("select age_bucket, display_key from member where member_id = ?", 9999L))
+        .containsEntry("AGE_BUCKET", "OTHER")
+        .containsEntry("DISPLAY_KEY", "member1_35");
+    assertThat(jdbcTemplate.queryForList(
+        "select index_name from information_schema.indexes where table_name = 'MEMBER'", String.class))
+        .contains("IDX_MEMBER_AGE_BUCKET", "IDX_MEMBER_DISPLAY_KEY");
+  }
+
+  @Test
+  public void teamNameUnique(){
+    em.persist(new Team("teamA"));
+    em.flush();
+
+    assertThatThrownBy(() -> jdbcTemplate.update("insert into team (team_id, name) values (?, ?)", 9999L, "teamA"))
+        .isInstanceOf(DataIntegrityViolationException.class);
+  }
+}
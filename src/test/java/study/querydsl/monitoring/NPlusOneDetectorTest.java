@@ -0,0 +1,80 @@
+package study.querydsl.monitoring;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import jakarta.persistence.EntityManager;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberTestRepository;
+
+@SpringBootTest
+@Transactional
+class NPlusOneDetectorTest {
+
+  @Autowired
+  EntityManager em;
+
+  @Autowired
+  MemberTestRepository memberTestRepository;
+
+  @Autowired
+  NPlusOneDetector detector;
+
+  @BeforeEach
+  public void before(){
+    for (int i = 0; i < 10; i++) {
+      Team team = new Team("team" + i);
+      em.persist(team);
+      em.persist(new Member("member" + i, i, team));
+    }
+    em.flush();
+    em.clear();
+  }
+
+  @Test
+  public void batchFetchTeam(){
+    try (NPlusOneDetector.Scope scope = detector.open("applyPagination", 2)) {
+      Page<Member> result = memberTestRepository.applyPagination(new MemberSearchCondition(), PageRequest.of(0, 20));
+      List<String> teamNames = result.getContent().stream()
+          .map(m -> m.getTeam().getName())
+          .toList();
+
+      assertThat(teamNames).hasSize(10);
+      //member 조회 1번 + team in 쿼리 1번 (team 마다 select 가 나가지 않는다)
+      assertThat(scope.getCount()).isEqualTo(2);
+    }
+  }
+
+  @Test
+  public void batchFetchMembers(){
+    try (NPlusOneDetector.Scope scope = detector.open("teamMembers", 2)) {
+      List<Team> teams = em.createQuery("select t from Team t", Team.class).getResultList();
+      int memberCount = teams.stream().mapToInt(t -> t.getMembers().size()).sum();
+
+      assertThat(memberCount).isEqualTo(10);
+      assertThat(scope.getCount()).isEqualTo(2);
+    }
+  }
+
+  @Test
+  public void failOverThreshold(){
+    assertThatThrownBy(() -> {
+      try (NPlusOneDetector.Scope scope = detector.open("perMember", 1)) {
+        for (int i = 0; i < 3; i++) {
+          em.createQuery("select count(m) from Member m", Long.class).getSingleResult();
+        }
+      }
+    }).isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("perMember");
+  }
+}
@@ -0,0 +1,115 @@
+package study.querydsl.monitoring;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.MemberTestRepository;
+
+@SpringBootTest
+@Transactional
+class QueryMetricsTest {
+
+  @Autowired
+  EntityManager em;
+
+  @Autowired
+  MemberRepository memberRepository;
+
+  @Autowired
+  MemberTestRepository memberTestRepository;
+
+  @Autowired
+  MeterRegistry registry;
+
+  @Autowired
+  QueryMetricsEndpoint endpoint;
+
+  @BeforeEach
+  public void before(){
+    Team teamA = new Team("teamA");
+    Team teamB = new Team("teamB");
+    em.persist(teamA);
+    em.persist(teamB);
+    for (int i = 0; i < 10; i++) {
+      em.persist(new Member("member" + i, i * 10, i % 2 == 0 ? teamA : teamB));
+    }
+    em.flush();
+    em.clear();
+  }
+
+  @Test
+  public void taggedByRepositoryMethodAndShape(){
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setTeamName("teamA");
+    condition.setAgeGoe(20);
+
+    memberRepository.searchPageComplex(condition, PageRequest.of(0, 2));
+
+    String shape = "team.name:eq,member1.age:goe";
+    Timer timer = registry.find(QueryMetrics.TIMER)
+        .tags("method", "MemberRepositoryImpl.searchPageComplex", "shape", shape)
+        .timer();
+    assertThat(timer).isNotNull();
+    //content 쿼리 + count 쿼리 (count 는 람다 안에서 실행되지만 같은 메서드로 기록)
+    assertThat(timer.count()).isEqualTo(2);
+
+    DistributionSummary rows = registry.find(QueryMetrics.ROWS)
+        .tags("method", "MemberRepositoryImpl.searchPageComplex", "shape", shape)
+        .summary();
+    assertThat(rows.totalAmount()).isEqualTo(2 + 1); //content 2건 + count 1건
+
+    DistributionSummary statements = registry.find(QueryMetrics.STATEMENTS)
+        .tags("method", "MemberRepositoryImpl.searchPageComplex", "shape", shape)
+        .summary();
+    assertThat(statements.max()).isEqualTo(1);
+  }
+
+  @Test
+  public void supportQueriesTaggedBySubclassMethod(){
+    memberTestRepository.basicSelectFrom();
+
+    assertThat(registry.find(QueryMetrics.TIMER)
+        .tags("method", "MemberTestRepository.basicSelectFrom", "shape", "none")
+        .timer()).isNotNull();
+  }
+
+  @Test
+  public void jpqlTemplateSearchRecorded(){
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setUsername("member3");
+
+    memberRepository.search(condition);
+
+    assertThat(registry.find(QueryMetrics.TIMER)
+        .tags("method", "MemberRepositoryImpl.search", "shape", "username")
+        .timer()).isNotNull();
+    assertThat(endpoint.queries())
+        .anySatisfy(stats -> {
+          assertThat(stats.method()).isEqualTo("MemberRepositoryImpl.search");
+          assertThat(stats.meanRows()).isGreaterThan(0);
+        });
+  }
+
+  @Test
+  public void shapeIgnoresValues(){
+    assertThat(QueryMetrics.shapeOf(member.username.eq("a").and(team.name.eq("b")).and(member.age.loe(3))))
+        .isEqualTo(QueryMetrics.shapeOf(member.username.eq("x").and(team.name.eq("y")).and(member.age.loe(9))))
+        .isEqualTo("member1.username:eq,team.name:eq,member1.age:loe");
+    assertThat(QueryMetrics.shapeOf(null)).isEqualTo("none");
+  }
+}
@@ -0,0 +1,88 @@
+package study.querydsl.monitoring;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import jakarta.persistence.EntityManager;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.monitoring.SlowQueryLog.SlowQuery;
+import study.querydsl.repository.MemberRepository;
+
+@SpringBootTest(properties = {
+    "querydsl.slow-query.threshold=0ms", //모든 쿼리를 느린 쿼리로
+    "spring.datasource.url=jdbc:h2:mem:slowquery;DB_CLOSE_DELAY=-1" //컨텍스트가 따로 뜨므로 공용 DB 스키마를 다시 만들지 않도록
+})
+@Transactional
+class SlowQueryListenerTest {
+
+  @Autowired
+  EntityManager em;
+
+  @Autowired
+  MemberRepository memberRepository;
+
+  @Autowired
+  SlowQueryEndpoint endpoint;
+
+  @BeforeEach
+  public void before(){
+    Team teamA = new Team("teamA");
+    em.persist(teamA);
+    em.persist(new Member("member1", 10, teamA));
+    em.persist(new Member("member2", 20, teamA));
+    em.flush();
+    em.clear();
+    endpoint.clear();
+  }
+
+  @Test
+  public void capturesSqlValuesAndPlan(){
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setTeamName("teamA");
+    condition.setAgeGoe(15);
+
+    memberRepository.searchPageComplex(condition, PageRequest.of(0, 1));
+
+    List<SlowQuery> recent = endpoint.slowQueries();
+    assertThat(recent).isNotEmpty();
+    assertThat(recent).allSatisfy(entry -> {
+      assertThat(entry.method()).isEqualTo("MemberRepositoryImpl.searchPageComplex");
+      assertThat(entry.sql()).contains("?");
+      assertThat(entry.sqlWithValues()).contains("'teamA'").contains("15");
+      assertThat(entry.plan()).containsIgnoringCase("select");
+    });
+  }
+
+  @Test
+  public void reusesPlanOfSameSql(){
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setUsername("member1");
+    memberRepository.searchSlice(condition, null, 10);
+    condition.setUsername("member2");
+    memberRepository.searchSlice(condition, null, 10);
+
+    List<SlowQuery> recent = endpoint.slowQueries();
+    assertThat(recent).hasSize(2);
+    assertThat(recent.get(0).sqlWithValues()).contains("member2");
+    assertThat(recent.get(0).plan()).isSameAs(recent.get(1).plan());
+  }
+
+  @Test
+  public void ringBufferKeepsLatest(){
+    SlowQueryLog log = new SlowQueryLog(3);
+    for (int i = 0; i < 5; i++) {
+      log.add(new SlowQuery(Instant.now(), i, "m", null, "sql" + i, "sql" + i, null, null));
+    }
+
+    assertThat(log.recent()).extracting(SlowQuery::elapsedMs).containsExactly(4L, 3L, 2L);
+  }
+}
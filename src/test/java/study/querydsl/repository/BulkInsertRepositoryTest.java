@@ -0,0 +1,60 @@
+package study.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.monitoring.QueryCountListener;
+
+@SpringBootTest
+@Transactional
+class BulkInsertRepositoryTest {
+
+  @Autowired
+  EntityManager em;
+
+  @Autowired
+  BulkInsertRepository bulkInsertRepository;
+
+  @Autowired
+  QueryCountListener queryCountListener;
+
+  @Test
+  public void saveAllTest(){
+    Team teamA = new Team("teamA");
+    Team teamB = new Team("teamB");
+    bulkInsertRepository.saveAll(List.of(teamA, teamB));
+
+    Iterable<Member> members = () -> IntStream.range(0, 250)
+        .mapToObj(i -> Member.ofTeamOnly("member" + i, i, i % 2 == 0 ? teamA : teamB))
+        .iterator();
+    long before = queryCountListener.currentCount();
+    long saved = bulkInsertRepository.saveAll(members);
+    long statements = queryCountListener.currentCount() - before;
+
+    JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+    Long teamACount = queryFactory
+        .select(member.count())
+        .from(member)
+        .join(member.team, team)
+        .where(team.name.eq("teamA"))
+        .fetchOne();
+
+    assertThat(saved).isEqualTo(250);
+    assertThat(teamACount).isEqualTo(125);
+    assertThat(teamA.getMembers()).isEmpty(); //넣는 동안 team 이 member 를 붙잡고 있지 않다
+    //100개씩 insert batch 3번 + member_seq 조회 최대 4번 (앞에서 미리 받아둔 id 가 있으면 줄어든다)
+    //건마다 insert/select 가 나가면(250번 이상) batch 가 깨진 것
+    assertThat(statements).isLessThanOrEqualTo(3 + 4);
+  }
+}
@@ -0,0 +1,109 @@
+package study.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+import jakarta.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+/**
+ * 청크마다 별도 트랜잭션으로 커밋하므로 테스트 트랜잭션(@Transactional) 없이 실행하고 끝나면 직접 지운다.
+ */
+@SpringBootTest
+class MemberBulkRepositoryTest {
+
+  @Autowired
+  EntityManager em;
+
+  @Autowired
+  TransactionTemplate transactionTemplate;
+
+  @Autowired
+  MemberBulkRepository memberBulkRepository;
+
+  @BeforeEach
+  public void before(){
+    transactionTemplate.executeWithoutResult(status -> {
+      Team teamA = new Team("teamA");
+      em.persist(teamA);
+      for (int i = 0; i < 10; i++) {
+        em.persist(new Member("member" + i, i * 10, teamA));
+      }
+    });
+  }
+
+  @AfterEach
+  public void after(){
+    transactionTemplate.executeWithoutResult(status -> {
+      em.createQuery("delete from Member").executeUpdate();
+      em.createQuery("delete from Team").executeUpdate();
+    });
+  }
+
+  @Test
+  public void bulkUpdateInChunks(){
+    List<BulkProgress> progress = new ArrayList<>();
+
+    long count = memberBulkRepository.update(member.age.lt(28),
+        update -> update.set(member.username, "비회원"), 2, progress::add);
+
+    assertThat(count).isEqualTo(3);
+    assertThat(progress).hasSize(2);
+    assertThat(progress.get(progress.size() - 1).isDone()).isTrue();
+
+    List<String> usernames = transactionTemplate.execute(status ->
+        em.createQuery("select m.username from Member m where m.age < 28", String.class).getResultList());
+    assertThat(usernames).containsOnly("비회원");
+  }
+
+  @Test
+  public void skipEmptyRanges(){
+    //가운데 id 들을 지워서 id 를 듬성듬성하게 만든다 (member0, member1, member8, member9 만 남음)
+    transactionTemplate.executeWithoutResult(status ->
+        em.createQuery("delete from Member m where m.age between 20 and 70").executeUpdate());
+    List<BulkProgress> progress = new ArrayList<>();
+
+    long count = memberBulkRepository.update(member.age.goe(0),
+        update -> update.set(member.age, member.age.add(1)), 2, progress::add);
+
+    assertThat(count).isEqualTo(4);
+    assertThat(progress).extracting("affectedRows").containsExactly(2L, 4L); //지워진 범위는 청크로 돌지 않는다
+    assertThat(progress.get(progress.size() - 1).isDone()).isTrue();
+  }
+
+  @Test
+  public void bulkUpdateEvictsPersistenceContext(){
+    transactionTemplate.executeWithoutResult(status -> {
+      Member member0 = em.createQuery("select m from Member m where m.username = 'member0'", Member.class)
+          .getSingleResult();
+
+      //조회만 한 상태(수정 없음)에서 다른 트랜잭션으로 벌크 update
+      memberBulkRepository.update(member.age.eq(0),
+          update -> update.set(member.age, member.age.add(1)), 100, null);
+
+      //영속성 컨텍스트에서 내려갔으므로 다시 조회하면 DB 값을 읽어옴
+      assertThat(em.contains(member0)).isFalse();
+      Member reloaded = em.find(Member.class, member0.getId());
+      assertThat(reloaded.getAge()).isEqualTo(1);
+    });
+  }
+
+  @Test
+  public void bulkDeleteInChunks(){
+    long count = memberBulkRepository.delete(member.age.gt(18), 3, null);
+
+    Long remaining = transactionTemplate.execute(status ->
+        em.createQuery("select count(m) from Member m", Long.class).getSingleResult());
+    assertThat(count).isEqualTo(8);
+    assertThat(remaining).isEqualTo(2);
+  }
+}
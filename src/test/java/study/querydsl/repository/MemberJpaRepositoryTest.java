@@ -9,6 +9,7 @@ import org.springframework.transaction.annotation.Transactional;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
+import java.util.ArrayList;
 import java.util.List;
 import study.querydsl.entity.Team;
 
@@ -24,6 +25,9 @@ class MemberJpaRepositoryTest {
   @Autowired
   MemberJpaRepository memberJpaRepository;
 
+  @Autowired
+  MemberSearchQueryTemplates searchQueryTemplates;
+
   @Test
   public void basicTest(){
 
@@ -68,5 +72,42 @@ class MemberJpaRepositoryTest {
     assertThat(result).extracting("username").containsExactly("member3","member4");
   }
 
+  @Test
+  public void searchForEachTest(){
+    Team teamA = new Team("teamA");
+    em.persist(teamA);
+    em.persist(new Member("member1", 10, teamA));
+    em.persist(new Member("member2", 20, teamA));
+    em.persist(new Member("member3", 30, teamA));
+
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setAgeGoe(20);
+
+    List<MemberTeamDto> result = new ArrayList<>();
+    memberJpaRepository.searchForEach(condition, result::add);
+
+    assertThat(result).extracting("username").containsExactly("member2", "member3");
+  }
+
+  @Test
+  public void searchTemplateCacheTest(){
+    Team teamA = new Team("teamA");
+    em.persist(teamA);
+    em.persist(new Member("member1", 10, teamA));
+    em.persist(new Member("member2", 20, teamA));
+
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setUsername("member1");
+    memberJpaRepository.search(condition);
+
+    //조건 값이 달라도 조합(shape)이 같으면 같은 JPQL 템플릿을 재사용
+    long hitCount = searchQueryTemplates.getHitCount();
+    condition.setUsername("member2");
+    List<MemberTeamDto> result = memberJpaRepository.search(condition);
+
+    assertThat(result).extracting("username").containsExactly("member2");
+    assertThat(searchQueryTemplates.getHitCount()).isEqualTo(hitCount + 1);
+  }
+
 
 }
\ No newline at end of file
@@ -0,0 +1,122 @@
+package study.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.AsyncQueries;
+
+/**
+ * 비동기 조회는 다른 스레드의 다른 트랜잭션에서 실행되므로 테스트 트랜잭션(@Transactional) 없이 커밋하고 끝나면 직접 지운다.
+ */
+@SpringBootTest
+class MemberRepositoryAsyncTest {
+
+  @Autowired
+  EntityManager em;
+
+  @Autowired
+  EntityManagerFactory emf;
+
+  @Autowired
+  TransactionTemplate transactionTemplate;
+
+  @Autowired
+  MemberRepository memberRepository;
+
+  @Autowired
+  AsyncQueries asyncQueries;
+
+  @BeforeEach
+  public void before(){
+    transactionTemplate.executeWithoutResult(status -> {
+      Team teamA = new Team("teamA");
+      Team teamB = new Team("teamB");
+      em.persist(teamA);
+      em.persist(teamB);
+      em.persist(new Member("member1", 10, teamA));
+      em.persist(new Member("member2", 20, teamA));
+      em.persist(new Member("member3", 30, teamB));
+      em.persist(new Member("member4", 40, teamB));
+      em.persist(new Member("member5", 50)); //팀 없음
+    });
+  }
+
+  @AfterEach
+  public void after(){
+    transactionTemplate.executeWithoutResult(status -> {
+      em.createQuery("delete from Member").executeUpdate();
+      em.createQuery("delete from Team").executeUpdate();
+    });
+  }
+
+  @Test
+  public void sameResultAsBlocking(){
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setAgeGoe(20);
+    PageRequest pageRequest = PageRequest.of(0, 2);
+
+    assertThat(memberRepository.searchAsync(condition).join())
+        .containsExactlyInAnyOrderElementsOf(memberRepository.search(condition));
+
+    Page<MemberTeamDto> simple = memberRepository.searchPageSimpleAsync(condition, pageRequest).join();
+    assertThat(simple.getContent()).isEqualTo(memberRepository.searchPageSimple(condition, pageRequest).getContent());
+    assertThat(simple.getTotalElements()).isEqualTo(4);
+
+    Page<MemberTeamDto> complex = memberRepository.searchPageComplexAsync(condition, pageRequest).join();
+    assertThat(complex.getContent()).isEqualTo(memberRepository.searchPageComplex(condition, pageRequest).getContent());
+    assertThat(complex.getTotalElements()).isEqualTo(4);
+  }
+
+  @Test
+  public void teamSummary(){
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setAgeGoe(20);
+
+    assertThat(memberRepository.searchTeamSummaryAsync(condition).join())
+        .isEqualTo(memberRepository.searchTeamSummary(condition))
+        .extracting("teamName", "count", "min", "max")
+        .containsExactly(
+            tuple("teamA", 1L, 20, 20),
+            tuple("teamB", 2L, 30, 40));
+  }
+
+  @Test
+  public void eachTaskUsesItsOwnEntityManager(){
+    CompletableFuture<TaskContext> first = asyncQueries.supply(this::capture);
+    CompletableFuture<TaskContext> second = asyncQueries.supply(this::capture);
+
+    assertThat(List.of(first.join(), second.join())).allSatisfy(context -> {
+      assertThat(context.thread()).startsWith("async-query-");
+      assertThat(context.readOnly()).isTrue();
+    });
+    assertThat(first.join().entityManager()).isNotSameAs(second.join().entityManager());
+    assertThat(first.join().entityManager().isOpen()).isFalse(); //작업이 끝나면 닫힌다
+  }
+
+  private TaskContext capture() {
+    EntityManagerHolder holder = (EntityManagerHolder) TransactionSynchronizationManager.getResource(emf);
+    return new TaskContext(Thread.currentThread().getName(),
+        TransactionSynchronizationManager.isCurrentTransactionReadOnly(), holder.getEntityManager());
+  }
+
+  record TaskContext(String thread, boolean readOnly, EntityManager entityManager) {
+  }
+}
@@ -11,6 +11,8 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.CursorSlice;
+import study.querydsl.dto.MemberCursor;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
@@ -68,6 +70,8 @@ class MemberRepositoryTest {
     List<MemberTeamDto> result = memberRepository.search(condition);
 
     assertThat(result).extracting("username").containsExactly("member4");
+    assertThat(memberRepository.search(new MemberSearchCondition(), 2)).extracting("username")
+        .containsExactly("member1", "member2"); //member_id 순으로 limit 건
   }
 
   @Test
@@ -95,4 +99,60 @@ class MemberRepositoryTest {
     assertThat(result.getSize()).isEqualTo(3);
     assertThat(result.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
   }
-}
\ No newline at end of file
+
+  @Test
+  public void searchSliceTest(){
+    Team teamA = new Team("teamA");
+    Team teamB = new Team("teamB");
+    em.persist(teamA);
+    em.persist(teamB);
+
+    Member member1 = new Member("member1", 10, teamA);
+    Member member2 = new Member("member2", 20, teamA);
+
+    Member member3 = new Member("member3", 30, teamB);
+    Member member4 = new Member("member4", 40, teamB);
+    em.persist(member1);
+    em.persist(member2);
+    em.persist(member3);
+    em.persist(member4);
+
+    MemberSearchCondition condition = new MemberSearchCondition();
+
+    CursorSlice<MemberTeamDto> first = memberRepository.searchSlice(condition, MemberCursor.first(), 3);
+    assertThat(first.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
+    assertThat(first.isHasNext()).isTrue();
+
+    CursorSlice<MemberTeamDto> second = memberRepository.searchSlice(condition, MemberCursor.decode(first.getNextCursor()), 3);
+    assertThat(second.getContent()).extracting("username").containsExactly("member4");
+    assertThat(second.isHasNext()).isFalse();
+    assertThat(second.getNextCursor()).isNull();
+  }
+
+  @Test
+  public void searchPageComplexTest(){
+    Team teamA = new Team("teamA");
+    Team teamB = new Team("teamB");
+    em.persist(teamA);
+    em.persist(teamB);
+
+    Member member1 = new Member("member1", 10, teamA);
+    Member member2 = new Member("member2", 20, teamA);
+
+    Member member3 = new Member("member3", 30, teamB);
+    Member member4 = new Member("member4", 40, teamB);
+    em.persist(member1);
+    em.persist(member2);
+    em.persist(member3);
+    em.persist(member4);
+
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setTeamName("teamB");
+    PageRequest pageRequest = PageRequest.of(0, 1);
+
+    Page<MemberTeamDto> result = memberRepository.searchPageComplex(condition, pageRequest);
+
+    assertThat(result.getTotalElements()).isEqualTo(2);
+    assertThat(result.getContent()).extracting("username").containsExactly("member3");
+  }
+}
@@ -0,0 +1,80 @@
+package study.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import jakarta.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+@SpringBootTest
+@Transactional
+class MemberSearchJdbcRepositoryTest {
+
+  @Autowired
+  EntityManager em;
+
+  @Autowired
+  MemberJpaRepository memberJpaRepository;
+
+  @Autowired
+  MemberSearchJdbcRepository memberSearchJdbcRepository;
+
+  @BeforeEach
+  public void before(){
+    Team teamA = new Team("teamA");
+    Team teamB = new Team("teamB");
+    em.persist(teamA);
+    em.persist(teamB);
+
+    em.persist(new Member("member1", 10, teamA));
+    em.persist(new Member("member2", 20, teamA));
+    em.persist(new Member("member3", 30, teamB));
+    em.persist(new Member("member4", 40, teamB));
+    em.persist(new Member("member5", 50)); //팀 없음
+    em.flush(); //JDBC 로 바로 조회하므로 먼저 반영
+  }
+
+  @Test
+  public void sameResultAsJpql(){
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setAgeGoe(20);
+    condition.setTeamName("teamB");
+
+    assertThat(memberSearchJdbcRepository.search(condition))
+        .containsExactlyInAnyOrderElementsOf(memberJpaRepository.search(condition))
+        .extracting("username").containsExactlyInAnyOrder("member3", "member4");
+
+    MemberSearchCondition noCondition = new MemberSearchCondition();
+    List<MemberTeamDto> all = memberSearchJdbcRepository.search(noCondition);
+    assertThat(all).containsExactlyInAnyOrderElementsOf(memberJpaRepository.search(noCondition));
+    assertThat(all).filteredOn(dto -> dto.getUsername().equals("member5"))
+        .extracting("teamId", "teamName").containsExactly(tuple(null, null));
+  }
+
+  @Test
+  public void forEachReusesRow(){
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setAgeLoe(30);
+
+    List<Object> rows = new ArrayList<>();
+    List<MemberTeamDto> copies = new ArrayList<>();
+    memberSearchJdbcRepository.forEach(condition, row -> {
+      rows.add(row);
+      copies.add(row.toDto());
+    });
+
+    assertThat(rows).hasSize(3);
+    assertThat(rows).allSatisfy(row -> assertThat(row).isSameAs(rows.get(0)));
+    assertThat(copies).containsExactlyInAnyOrderElementsOf(memberSearchJdbcRepository.search(condition));
+  }
+}
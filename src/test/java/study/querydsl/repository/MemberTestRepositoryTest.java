@@ -0,0 +1,143 @@
+package study.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+import jakarta.persistence.EntityManager;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.AgeBucket;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.monitoring.QueryCountListener;
+
+@SpringBootTest
+@Transactional
+class MemberTestRepositoryTest {
+
+  @Autowired
+  EntityManager em;
+
+  @Autowired
+  MemberTestRepository memberTestRepository;
+
+  @Autowired
+  QueryCountListener queryCountListener;
+
+  @BeforeEach
+  public void before(){
+    Team teamA = new Team("teamA");
+    Team teamB = new Team("teamB");
+    em.persist(teamA);
+    em.persist(teamB);
+
+    em.persist(new Member("member1", 10, teamA));
+    em.persist(new Member("member2", 20, teamA));
+    em.persist(new Member("member3", 30, teamB));
+    em.persist(new Member("member4", 40, teamB));
+  }
+
+  @Test
+  public void applyPaginationTest(){
+    MemberSearchCondition condition = new MemberSearchCondition();
+    PageRequest pageRequest = PageRequest.of(0, 3, Sort.by("username"));
+
+    Page<Member> result = memberTestRepository.applyPagination(condition, pageRequest);
+
+    assertThat(result.getTotalElements()).isEqualTo(4);
+    assertThat(result.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
+  }
+
+  @Test
+  public void applyPaginationCountQueryTest(){
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setTeamName("teamB");
+    PageRequest pageRequest = PageRequest.of(0, 1, Sort.by("username"));
+
+    Page<Member> result = memberTestRepository.applyPagination2(condition, pageRequest);
+
+    assertThat(result.getTotalElements()).isEqualTo(2);
+    assertThat(result.getContent()).extracting("username").containsExactly("member3");
+  }
+
+  @Test
+  public void searchMemberDtoTest(){
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setAgeGoe(20);
+    assertThat(memberTestRepository.searchMemberDto(condition))
+        .extracting("username").containsExactlyInAnyOrder("member2", "member3", "member4");
+
+    condition.setTeamName("teamB");
+    assertThat(memberTestRepository.searchMemberDto(condition))
+        .extracting("username").containsExactlyInAnyOrder("member3", "member4");
+  }
+
+  @Test
+  public void searchWithTeamTest(){
+    em.flush();
+    em.clear();
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setTeamName("teamA");
+
+    long before = queryCountListener.currentCount();
+    List<Member> result = memberTestRepository.searchWithTeam(condition);
+    assertThat(result).extracting(found -> found.getTeam().getName()).containsOnly("teamA").hasSize(2);
+    assertThat(queryCountListener.currentCount() - before).isEqualTo(1); //team 은 fetch join
+  }
+
+  @Test
+  public void findTeamsWithMembersTest(){
+    em.flush();
+    em.clear();
+
+    long before = queryCountListener.currentCount();
+    List<Team> teams = memberTestRepository.findTeamsWithMembers(0, 2);
+    assertThat(queryCountListener.currentCount() - before).isEqualTo(2); //team 페이지 + members batch 1번
+    assertThat(teams).extracting(found -> found.getMembers().size()).containsExactly(2, 2);
+  }
+
+  @Test
+  public void subQueryRewriteTest(){
+    assertThat(memberTestRepository.findOldestMembers()).extracting("username").containsExactly("member4");
+    assertThat(memberTestRepository.findMembersAtLeastAverageAge())
+        .extracting("username").containsExactlyInAnyOrder("member3", "member4");
+  }
+
+  @Test
+  public void ageBucketTest(){
+    assertThat(memberTestRepository.findByAgeBucket(AgeBucket.AGE_0_20))
+        .extracting("displayKey").containsExactly("member1_10", "member2_20");
+    assertThat(memberTestRepository.countByAgeBucket())
+        .containsExactly(entry(AgeBucket.AGE_0_20, 2L), entry(AgeBucket.AGE_21_30, 1L), entry(AgeBucket.OTHER, 1L));
+
+    //bulk update 는 엔티티를 거치지 않지만 DB 가 다시 계산한다
+    em.createQuery("update Member m set m.age = m.age + 1").executeUpdate();
+    em.clear();
+
+    List<Member> result = memberTestRepository.findByAgeBucket(AgeBucket.AGE_21_30);
+    assertThat(result).extracting("username").containsExactly("member2");
+    assertThat(result.get(0).getDisplayKey()).isEqualTo("member2_21");
+  }
+
+  @Test
+  public void derivedColumnsMatchDatabase(){
+    Member member = new Member("member5", 25);
+    em.persist(member);
+    em.flush();
+    assertThat(member.getAgeBucket()).isEqualTo(AgeBucket.AGE_21_30); //다시 읽지 않고 엔티티가 계산한 값
+
+    //2차 캐시를 거치지 않고 DB 가 계산한 값과 비교
+    Object[] row = (Object[]) em.createNativeQuery("select age_bucket, display_key from member where member_id = ?")
+        .setParameter(1, member.getId())
+        .getSingleResult();
+    assertThat(row).containsExactly(member.getAgeBucket().name(), member.getDisplayKey());
+  }
+}
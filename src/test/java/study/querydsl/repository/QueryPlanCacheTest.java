@@ -0,0 +1,95 @@
+package study.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.controller.CacheStatsController;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+@SpringBootTest
+@Transactional
+class QueryPlanCacheTest {
+
+  @Autowired
+  EntityManager em;
+
+  @Autowired
+  EntityManagerFactory emf;
+
+  @Autowired
+  MemberJpaRepository memberJpaRepository;
+
+  @Autowired
+  CacheStatsController cacheStatsController;
+
+  Statistics statistics;
+
+  @BeforeEach
+  public void before(){
+    Team teamA = new Team("teamA");
+    em.persist(teamA);
+    for (int i = 0; i < 10; i++) {
+      em.persist(new Member("member" + i, i * 10, teamA));
+    }
+    em.flush();
+    statistics = emf.unwrap(SessionFactory.class).getStatistics();
+  }
+
+  @Test
+  public void sameShapeSharesPlan(){
+    Set<String> before = new HashSet<>(Arrays.asList(statistics.getQueries()));
+    long hitBefore = statistics.getQueryPlanCacheHitCount();
+
+    for (int i = 0; i < 20; i++) {
+      //값과 빈 문자열 처리만 다르고 조건 조합은 같다. (username 없음, teamName + ageGoe)
+      memberJpaRepository.searchByBuilder(condition(i % 2 == 0 ? null : " ", "team" + (char) ('A' + i % 3), i));
+    }
+
+    Set<String> added = new HashSet<>(Arrays.asList(statistics.getQueries()));
+    added.removeAll(before);
+    assertThat(added).hasSizeLessThanOrEqualTo(1);
+    assertThat(statistics.getQueryPlanCacheHitCount() - hitBefore).isGreaterThanOrEqualTo(19);
+  }
+
+  @Test
+  public void normalizedBuilderMatchesTemplate(){
+    MemberSearchCondition condition = condition("", "teamA", 30);
+
+    assertThat(memberJpaRepository.searchByBuilder(condition))
+        .containsExactlyInAnyOrderElementsOf(memberJpaRepository.search(condition))
+        .hasSize(7);
+  }
+
+  @Test
+  public void queryPlanStats(){
+    memberJpaRepository.searchByBuilder(condition(null, "teamA", 10));
+
+    Map<String, Object> stats = cacheStatsController.queryPlanStats();
+    assertThat((Map<String, Object>) stats.get("settings"))
+        .containsEntry("hibernate.query.in_clause_parameter_padding", "true");
+    assertThat((Map<String, Object>) stats.get("planCache")).containsKeys("hit", "miss", "hitRatio");
+    assertThat((Integer) stats.get("distinctQueries")).isPositive();
+  }
+
+  private MemberSearchCondition condition(String username, String teamName, Integer ageGoe) {
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setUsername(username);
+    condition.setTeamName(teamName);
+    condition.setAgeGoe(ageGoe);
+    return condition;
+  }
+}
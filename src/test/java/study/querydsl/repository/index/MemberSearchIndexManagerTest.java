@@ -0,0 +1,158 @@
+package study.querydsl.repository.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+import jakarta.persistence.EntityManager;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberBulkRepository;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberSearchJdbcRepository;
+
+/**
+ * 인덱스는 커밋된 데이터만 반영하므로 테스트 트랜잭션(@Transactional) 없이 실행하고 끝나면 직접 지운다.
+ */
+@SpringBootTest(properties = {
+    "querydsl.member-index.enabled=true",
+    "spring.datasource.url=jdbc:h2:mem:memberindex;DB_CLOSE_DELAY=-1" //컨텍스트가 따로 뜨므로 공용 DB 스키마를 다시 만들지 않도록
+})
+class MemberSearchIndexManagerTest {
+
+  @Autowired
+  EntityManager em;
+
+  @Autowired
+  TransactionTemplate transactionTemplate;
+
+  @Autowired
+  MemberSearchIndexManager indexManager;
+
+  @Autowired
+  MemberJpaRepository memberJpaRepository;
+
+  @Autowired
+  MemberSearchJdbcRepository memberSearchJdbcRepository;
+
+  @Autowired
+  MemberBulkRepository memberBulkRepository;
+
+  @BeforeEach
+  public void before(){
+    transactionTemplate.executeWithoutResult(status -> {
+      Team teamA = new Team("teamA");
+      Team teamB = new Team("teamB");
+      em.persist(teamA);
+      em.persist(teamB);
+      for (int i = 0; i < 10; i++) {
+        em.persist(new Member("member" + i, i * 10, i % 2 == 0 ? teamA : teamB));
+      }
+      em.persist(new Member(null, 100)); //이름, 팀 없음
+    });
+    indexManager.load();
+  }
+
+  @AfterEach
+  public void after(){
+    transactionTemplate.executeWithoutResult(status -> {
+      em.createQuery("delete from Member").executeUpdate();
+      em.createQuery("delete from Team").executeUpdate();
+    });
+  }
+
+  @Test
+  public void sameResultAsDatabase(){
+    for (MemberSearchCondition condition : List.of(
+        condition(null, null, null, null),
+        condition("member3", null, null, null),
+        condition("member3", "teamA", null, null),
+        condition(null, "teamA", 20, 60),
+        condition(null, "teamC", null, null),
+        condition(null, null, 35, null))) {
+      assertThat(memberJpaRepository.search(condition))
+          .as(condition.toString())
+          .containsExactlyInAnyOrderElementsOf(memberSearchJdbcRepository.search(condition));
+    }
+  }
+
+  @Test
+  public void applyAfterCommit(){
+    MemberSearchCondition condition = condition("newMember", null, null, null);
+
+    transactionTemplate.executeWithoutResult(status -> {
+      em.persist(new Member("newMember", 5));
+      em.flush();
+      assertThat(indexManager.search(condition)).isEmpty(); //커밋 전에는 반영되지 않음
+    });
+    assertThat(indexManager.search(condition)).extracting("age").containsExactly(5);
+
+    transactionTemplate.executeWithoutResult(status -> {
+      em.persist(new Member("rollbackMember", 5));
+      em.flush();
+      status.setRollbackOnly();
+    });
+    assertThat(indexManager.search(condition("rollbackMember", null, null, null))).isEmpty();
+
+    transactionTemplate.executeWithoutResult(status -> {
+      Member newMember = em.createQuery("select m from Member m where m.username = 'newMember'", Member.class)
+          .getSingleResult();
+      em.remove(newMember);
+    });
+    assertThat(indexManager.search(condition)).isEmpty();
+  }
+
+  @Test
+  public void applyBulkChanges(){
+    memberBulkRepository.update(member.age.lt(30), update -> update.set(member.age, 99), 3, null);
+    memberBulkRepository.delete(member.age.goe(70).and(member.age.lt(99)), 3, null);
+
+    List<MemberTeamDto> result = indexManager.search(condition(null, null, null, null));
+    assertThat(result).containsExactlyInAnyOrderElementsOf(memberSearchJdbcRepository.search(condition(null, null, null, null)));
+    assertThat(result).filteredOn(dto -> dto.getAge() == 99).hasSize(3);
+    assertThat(result).extracting("username").doesNotContain("member7", "member8", "member9");
+  }
+
+  @Test
+  public void keepUsernameOrderOnWrites(){
+    memberBulkRepository.update(member.age.lt(30), update -> update.set(member.username, "renamed"), 2, null);
+    transactionTemplate.executeWithoutResult(status -> em.persist(new Member("member35", 35)));
+
+    assertThat(indexManager.search(condition("renamed", null, null, null))).extracting("age")
+        .containsExactlyInAnyOrder(0, 10, 20);
+    assertThat(indexManager.search(condition("member1", null, null, null))).isEmpty();
+    assertThat(indexManager.search(condition("member35", null, null, null))).extracting("age").containsExactly(35);
+    for (String username : List.of("member3", "member4", "member9")) {
+      assertThat(indexManager.search(condition(username, null, null, null)))
+          .containsExactlyInAnyOrderElementsOf(memberSearchJdbcRepository.search(condition(username, null, null, null)));
+    }
+  }
+
+  @Test
+  public void applyTeamRename(){
+    transactionTemplate.executeWithoutResult(status ->
+        em.createQuery("select t from Team t where t.name = 'teamA'", Team.class).getSingleResult().changeName("teamC"));
+
+    assertThat(indexManager.search(condition(null, "teamA", null, null))).isEmpty();
+    assertThat(indexManager.search(condition(null, "teamC", null, null)))
+        .containsExactlyInAnyOrderElementsOf(memberSearchJdbcRepository.search(condition(null, "teamC", null, null)))
+        .hasSize(5);
+  }
+
+  private static MemberSearchCondition condition(String username, String teamName, Integer ageGoe, Integer ageLoe) {
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setUsername(username);
+    condition.setTeamName(teamName);
+    condition.setAgeGoe(ageGoe);
+    condition.setAgeLoe(ageLoe);
+    return condition;
+  }
+}
@@ -0,0 +1,77 @@
+package study.querydsl.repository.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberBulkRepository;
+
+/**
+ * replica 라우팅이 켜져 있어도 인덱스는 primary 에서 읽는지 확인한다.
+ * replica 는 비어 있는(복제가 늦은) DB 로 두므로 replica 에서 읽으면 인덱스가 비거나 예전 값이 남는다.
+ */
+@SpringBootTest(properties = {
+    "querydsl.member-index.enabled=true",
+    "querydsl.datasource.routing.enabled=true",
+    "spring.datasource.url=jdbc:h2:mem:indexprimary;DB_CLOSE_DELAY=-1",
+    "querydsl.datasource.replica.url=" + MemberSearchIndexRoutingTest.REPLICA_URL
+})
+class MemberSearchIndexRoutingTest {
+
+  static final String REPLICA_URL = "jdbc:h2:mem:indexreplica;DB_CLOSE_DELAY=-1";
+
+  @Autowired
+  EntityManager em;
+
+  @Autowired
+  TransactionTemplate transactionTemplate;
+
+  @Autowired
+  MemberSearchIndexManager indexManager;
+
+  @Autowired
+  MemberBulkRepository memberBulkRepository;
+
+  JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+  @BeforeEach
+  public void before(){
+    replica.execute("create table if not exists team (team_id bigint primary key, name varchar(255))");
+    replica.execute("create table if not exists member (member_id bigint primary key, age integer not null,"
+        + " team_id bigint, username varchar(255), age_bucket varchar(16), display_key varchar(267))");
+
+    transactionTemplate.executeWithoutResult(status -> {
+      for (int i = 0; i < 5; i++) {
+        em.persist(new Member("member" + i, i * 10));
+      }
+    });
+    indexManager.load();
+  }
+
+  @AfterEach
+  public void after(){
+    transactionTemplate.executeWithoutResult(status -> em.createQuery("delete from Member").executeUpdate());
+  }
+
+  @Test
+  public void readPrimary(){
+    assertThat(indexManager.search(new MemberSearchCondition())).hasSize(5);
+
+    memberBulkRepository.update(member.age.lt(20), update -> update.set(member.age, 99), 1, null);
+    memberBulkRepository.delete(member.age.eq(40), 1, null);
+    transactionTemplate.executeWithoutResult(status -> em.persist(new Member("newMember", 5)));
+
+    assertThat(indexManager.search(new MemberSearchCondition())).extracting("age")
+        .containsExactlyInAnyOrder(99, 99, 20, 30, 5);
+  }
+}
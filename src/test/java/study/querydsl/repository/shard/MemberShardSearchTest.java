@@ -0,0 +1,133 @@
+package study.querydsl.repository.shard;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberBulkRepository;
+import study.querydsl.repository.MemberRepository;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:shardsearch;DB_CLOSE_DELAY=-1", //컨텍스트가 따로 뜨므로 공용 DB 스키마를 다시 만들지 않도록
+    "querydsl.sharding.enabled=true",
+    "querydsl.sharding.init-schema=true",
+    "querydsl.sharding.shards[0].url=jdbc:h2:mem:shard0;DB_CLOSE_DELAY=-1",
+    "querydsl.sharding.shards[1].url=jdbc:h2:mem:shard1;DB_CLOSE_DELAY=-1",
+    "querydsl.sharding.shards[2].url=jdbc:h2:mem:shard2;DB_CLOSE_DELAY=-1"
+})
+class MemberShardSearchTest {
+
+  static final String[] TEAMS = {"teamA", "teamB", "teamC", "teamD", "teamE"};
+
+  @Autowired
+  MemberShardSearch shardSearch;
+
+  @Autowired
+  MemberRepository memberRepository;
+
+  @Autowired
+  MemberBulkRepository memberBulkRepository;
+
+  /**
+   * member 1~50. 10명마다 팀을 바꾸고, 5의 배수는 팀 없음
+   */
+  @BeforeEach
+  public void before(){
+    MemberShardRouter router = shardSearch.getRouter();
+    for (int i = 0; i < router.shardCount(); i++) {
+      shardSearch.shard(i).update("delete from member");
+      shardSearch.shard(i).update("delete from team");
+    }
+    for (int t = 0; t < TEAMS.length; t++) {
+      shardSearch.shard(router.shardOfTeam(TEAMS[t])).update("insert into team (team_id, name) values (?, ?)", t + 1, TEAMS[t]);
+    }
+    for (long id = 1; id <= 50; id++) {
+      String teamName = id % 5 == 0 ? null : TEAMS[(int) ((id - 1) / 10)];
+      Long teamId = teamName == null ? null : (id - 1) / 10 + 1;
+      shardSearch.shard(router.shardOf(id, teamName))
+          .update("insert into member (member_id, username, age, team_id) values (?, ?, ?, ?)",
+              id, "member" + id, (int) id, teamId);
+    }
+  }
+
+  @Test
+  public void mergedInMemberIdOrder(){
+    List<MemberTeamDto> result = memberRepository.search(new MemberSearchCondition());
+
+    assertThat(result).extracting("memberId")
+        .containsExactlyElementsOf(IntStream.rangeClosed(1, 50).mapToObj(Long::valueOf).toList());
+    assertThat(result.get(4).getTeamName()).isNull();
+    assertThat(result.get(5).getTeamName()).isEqualTo("teamA");
+  }
+
+  @Test
+  public void limitPushedDownAndMerged(){
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setAgeGoe(21);
+
+    assertThat(memberRepository.search(condition, 7)).extracting("memberId")
+        .containsExactly(21L, 22L, 23L, 24L, 25L, 26L, 27L);
+  }
+
+  @Test
+  public void shardFailureNotWrapped(){
+    JdbcTemplate shard = shardSearch.shard(1);
+    shard.execute("alter table member rename to member_moved");
+    try {
+      assertThatThrownBy(() -> memberRepository.search(new MemberSearchCondition()))
+          .isInstanceOf(DataAccessException.class);
+    } finally {
+      shard.execute("alter table member_moved rename to member");
+    }
+  }
+
+  @Test
+  public void prunedToTeamShard(){
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setTeamName("teamC");
+    condition.setAgeLoe(25);
+
+    int[] shards = shardSearch.shardsFor(condition);
+    assertThat(shards).containsExactly(shardSearch.getRouter().shardOfTeam("teamC"));
+    assertThat(shardSearch.search(condition)).extracting("username")
+        .containsExactly("member21", "member22", "member23", "member24");
+  }
+
+  @Test
+  public void rejectWritesToPrimary(){
+    //샤드에 반영되지 않는 쓰기는 search 와 나머지 조회를 어긋나게 하므로 거부
+    assertThatThrownBy(() -> memberRepository.saveAndFlush(new Member("member51", 51)))
+        .hasMessageContaining("querydsl.sharding.enabled");
+    assertThatThrownBy(() -> memberBulkRepository.delete(member.age.gt(0), 10, null))
+        .hasMessageContaining("querydsl.sharding.enabled");
+    assertThat(memberRepository.count()).isZero();
+  }
+
+  @Test
+  public void mergeKeepsOrderAcrossLists(){
+    List<List<MemberTeamDto>> lists = new ArrayList<>();
+    lists.add(List.of(dto(1), dto(4), dto(9)));
+    lists.add(List.of());
+    lists.add(List.of(dto(2), dto(3), dto(10)));
+
+    assertThat(MemberShardSearch.merge(lists, Integer.MAX_VALUE)).extracting("memberId")
+        .containsExactly(1L, 2L, 3L, 4L, 9L, 10L);
+    assertThat(MemberShardSearch.merge(lists, 2)).extracting("memberId").containsExactly(1L, 2L);
+  }
+
+  private MemberTeamDto dto(long id) {
+    return new MemberTeamDto(id, "member" + id, (int) id, null, null);
+  }
+}
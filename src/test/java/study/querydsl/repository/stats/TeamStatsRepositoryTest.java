@@ -0,0 +1,169 @@
+package study.querydsl.repository.stats;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+import jakarta.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.TeamStatsDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.monitoring.QueryCountListener;
+import study.querydsl.repository.BulkProgress;
+import study.querydsl.repository.MemberBulkRepository;
+
+/**
+ * 통계는 커밋된 변경만 반영하므로 테스트 트랜잭션(@Transactional) 없이 실행하고 끝나면 직접 지운다.
+ */
+@SpringBootTest
+class TeamStatsRepositoryTest {
+
+  @Autowired
+  EntityManager em;
+
+  @Autowired
+  TransactionTemplate transactionTemplate;
+
+  @Autowired
+  TeamStatsRepository teamStatsRepository;
+
+  @Autowired
+  MemberBulkRepository memberBulkRepository;
+
+  @Autowired
+  QueryCountListener queryCountListener;
+
+  @BeforeEach
+  public void before(){
+    transactionTemplate.executeWithoutResult(status -> {
+      Team teamA = new Team("teamA");
+      Team teamB = new Team("teamB");
+      em.persist(teamA);
+      em.persist(teamB);
+      em.persist(new Member("member1", 10, teamA));
+      em.persist(new Member("member2", 20, teamA));
+      em.persist(new Member("member3", 30, teamB));
+      em.persist(new Member("member4", 40, teamB));
+      em.persist(new Member("member5", 50)); //팀 없음
+    });
+    teamStatsRepository.reload();
+  }
+
+  @AfterEach
+  public void after(){
+    transactionTemplate.executeWithoutResult(status -> {
+      em.createQuery("delete from Member").executeUpdate();
+      em.createQuery("delete from Team").executeUpdate();
+    });
+  }
+
+  @Test
+  public void sameResultAsGroupBy(){
+    assertThat(teamStatsRepository.findAll()).isEqualTo(teamStatsRepository.findAllByGroupBy());
+
+    TeamStatsDto teamA = teamStatsRepository.findByTeamName("teamA").orElseThrow();
+    assertThat(teamA.getCount()).isEqualTo(2);
+    assertThat(teamA.getAvg()).isEqualTo(15);
+    assertThat(teamA.getMin()).isEqualTo(10);
+    assertThat(teamA.getMax()).isEqualTo(20);
+  }
+
+  @Test
+  public void applyEntityChangesAfterCommit(){
+    transactionTemplate.executeWithoutResult(status -> {
+      Team teamA = findTeam("teamA");
+      em.persist(new Member("member6", 5, teamA));
+      em.persist(new Team("teamC"));
+      em.flush();
+      assertThat(teamStatsRepository.findByTeamName("teamA").orElseThrow().getCount()).isEqualTo(2); //커밋 전
+    });
+    assertThat(teamStatsRepository.findByTeamName("teamA").orElseThrow().getMin()).isEqualTo(5);
+    assertThat(teamStatsRepository.findByTeamName("teamC").orElseThrow().getCount()).isZero();
+
+    //나이 변경, 팀 이동, 삭제 (teamB 의 최대값 40 이 빠진다)
+    transactionTemplate.executeWithoutResult(status -> {
+      ReflectionTestUtils.setField(findMember("member1"), "age", 15);
+      ReflectionTestUtils.setField(findMember("member3"), "team", findTeam("teamA"));
+      ReflectionTestUtils.setField(findMember("member5"), "team", findTeam("teamC"));
+      em.remove(findMember("member4"));
+    });
+    assertThat(teamStatsRepository.findAll()).isEqualTo(teamStatsRepository.findAllByGroupBy());
+    assertThat(teamStatsRepository.findByTeamName("teamB").orElseThrow())
+        .extracting("count", "min", "max").containsExactly(0L, null, null);
+
+    transactionTemplate.executeWithoutResult(status -> {
+      em.persist(new Member("rollbackMember", 100, findTeam("teamA")));
+      em.flush();
+      status.setRollbackOnly();
+    });
+    assertThat(teamStatsRepository.findByTeamName("teamA").orElseThrow().getMax()).isEqualTo(30);
+    assertThat(teamStatsRepository.findAll()).isEqualTo(teamStatsRepository.findAllByGroupBy());
+  }
+
+  @Test
+  public void applyBulkChanges(){
+    memberBulkRepository.update(member.age.lt(30), update -> update.set(member.age, 99), 3, null);
+    memberBulkRepository.delete(member.age.eq(40), 3, null);
+
+    assertThat(teamStatsRepository.findAll()).isEqualTo(teamStatsRepository.findAllByGroupBy());
+    assertThat(teamStatsRepository.findByTeamName("teamA").orElseThrow())
+        .extracting("count", "min", "max").containsExactly(2L, 99, 99);
+  }
+
+  @Test
+  public void reloadOncePerBulk(){
+    List<BulkProgress> progress = new ArrayList<>();
+    long start = queryCountListener.currentCount();
+    memberBulkRepository.update(member.age.goe(0), update -> update.set(member.age, member.age.add(1)), 1, progress::add);
+    long queries = queryCountListener.currentCount() - start;
+
+    int chunks = progress.get(progress.size() - 1).getTotalChunks();
+    assertThat(chunks).isGreaterThan(1);
+    //id 범위 조회 1 + 청크마다 update 1 + 마지막 청크를 뺀 청크마다 다음 시작 id 조회 1 + 마지막에 다시 읽기 2 (팀, 팀/나이별 인원)
+    assertThat(queries).isEqualTo(1 + chunks + (chunks - 1) + 2);
+    assertThat(teamStatsRepository.findAll()).isEqualTo(teamStatsRepository.findAllByGroupBy());
+  }
+
+  @Test
+  public void reloadRetriesWhenGateIsBusy() throws Exception {
+    TeamStats before = teamStatsRepository.stats();
+    transactionTemplate.executeWithoutResult(status -> {
+      em.persist(new Member("member6", 60, findTeam("teamA")));
+      em.flush();
+      //flush 된 변경이 커밋되어 반영될 때까지 다른 스레드의 reload 는 읽지 않고 기존 통계를 둔 채 포기한다
+      try {
+        CompletableFuture.runAsync(teamStatsRepository::reload).get(5, TimeUnit.SECONDS);
+      } catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+      assertThat(teamStatsRepository.stats()).isSameAs(before);
+    });
+
+    //다음 조회 때 다시 읽고, 커밋 때 더한 변경이 두번 반영되지 않는다
+    assertThat(teamStatsRepository.findByTeamName("teamA").orElseThrow())
+        .extracting("count", "max").containsExactly(3L, 60);
+    assertThat(teamStatsRepository.findAll()).isEqualTo(teamStatsRepository.findAllByGroupBy());
+  }
+
+  private Team findTeam(String name) {
+    return em.createQuery("select t from Team t where t.name = :name", Team.class)
+        .setParameter("name", name)
+        .getSingleResult();
+  }
+
+  private Member findMember(String username) {
+    return em.createQuery("select m from Member m where m.username = :username", Member.class)
+        .setParameter("username", username)
+        .getSingleResult();
+  }
+}
@@ -0,0 +1,77 @@
+package study.querydsl.repository.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.repository.MemberRangeChangedEvent;
+
+class CountCacheTest {
+
+  CountCache countCache = new CountCache(Duration.ofMinutes(1), 100);
+  AtomicLong total = new AtomicLong(10);
+  AtomicLong queries = new AtomicLong();
+
+  @AfterEach
+  public void after(){
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  public void reuseWithinTtl(){
+    assertThat(count()).isEqualTo(10);
+    total.set(20);
+    assertThat(count()).isEqualTo(10);
+    assertThat(queries).hasValue(1);
+
+    countCache.onRangeChanged(new MemberRangeChangedEvent(1L, 100L)); //벌크 연산은 이미 커밋된 뒤
+    assertThat(count()).isEqualTo(20);
+  }
+
+  @Test
+  public void clearAfterCommit(){
+    assertThat(count()).isEqualTo(10);
+
+    TransactionSynchronizationManager.initSynchronization(); //트랜잭션 안
+    total.set(20);
+    countCache.clearAfterCommit();
+    assertThat(count()).isEqualTo(20); //바꾼 트랜잭션에서는 캐시를 쓰지 않는다
+    assertThat(queries).hasValue(2);
+
+    //커밋되면 비워진다
+    for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+      synchronization.afterCommit();
+      synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+    }
+    TransactionSynchronizationManager.clearSynchronization();
+    assertThat(count()).isEqualTo(20);
+    assertThat(queries).hasValue(3);
+  }
+
+  @Test
+  public void keepOnRollback(){
+    assertThat(count()).isEqualTo(10);
+
+    TransactionSynchronizationManager.initSynchronization();
+    countCache.clearAfterCommit();
+    for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+      synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+    }
+    TransactionSynchronizationManager.clearSynchronization();
+    assertThat(count()).isEqualTo(10);
+    assertThat(queries).hasValue(1);
+  }
+
+  private long count() {
+    return countCache.get("member", "condition", () -> {
+      queries.incrementAndGet();
+      return total.get();
+    });
+  }
+}
@@ -0,0 +1,102 @@
+package study.querydsl.repository.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.QMemberDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.monitoring.QueryCountListener;
+
+@SpringBootTest
+@Transactional
+class CountQueryTest {
+
+  @Autowired
+  EntityManager em;
+
+  @Autowired
+  JPAQueryFactory queryFactory;
+
+  @Autowired
+  QueryCountListener queryCountListener;
+
+  @BeforeEach
+  public void before(){
+    Team teamA = new Team("teamA");
+    Team teamB = new Team("teamB");
+    em.persist(teamA);
+    em.persist(teamB);
+
+    em.persist(new Member("member1", 10, teamA));
+    em.persist(new Member("member2", 10, teamA));
+    em.persist(new Member("member3", 20, teamA));
+    em.persist(new Member("member4", 20, teamB));
+    em.persist(new Member("member5", 30)); //팀 없음
+    em.flush();
+    em.clear();
+  }
+
+  @Test
+  public void countRoot(){
+    JPAQuery<Member> content = queryFactory
+        .selectFrom(member)
+        .leftJoin(member.team, team).fetchJoin()
+        .where(member.age.goe(20))
+        .orderBy(member.username.asc());
+
+    assertThat(count(content)).isEqualTo(3);
+  }
+
+  @Test
+  public void countGroups(){
+    //(팀, 나이) 그룹 수. row 를 가져와서 세지 않고 DB 에서 센다
+    JPAQuery<?> content = queryFactory
+        .select(team.name, member.age, member.count())
+        .from(member)
+        .join(member.team, team)
+        .groupBy(team.name, member.age)
+        .orderBy(team.name.asc());
+    assertThat(countWithOneRow(content)).isEqualTo(3);
+
+    JPAQuery<?> having = queryFactory
+        .select(member.age, member.count())
+        .from(member)
+        .where(member.age.lt(30))
+        .groupBy(member.age)
+        .having(member.count().gt(1L));
+    assertThat(countWithOneRow(having)).isEqualTo(2);
+  }
+
+  @Test
+  public void countDistinctProjection(){
+    JPAQuery<?> content = queryFactory
+        .select(new QMemberDto(member.username.substring(0, 6), member.age))
+        .distinct()
+        .from(member)
+        .where(member.age.loe(20));
+    assertThat(countWithOneRow(content)).isEqualTo(2); //(member, 10), (member, 20)
+  }
+
+  private long count(JPAQuery<?> content) {
+    return CountQuery.derive(content).fetch(em);
+  }
+
+  private long countWithOneRow(JPAQuery<?> content) {
+    long expected = content.fetch().size();
+    long before = queryCountListener.currentCount();
+    long count = count(content);
+    assertThat(queryCountListener.currentCount() - before).isEqualTo(1);
+    assertThat(count).isEqualTo(expected);
+    return count;
+  }
+}
@@ -0,0 +1,149 @@
+package study.querydsl.repository.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.JoinPlan.Decision;
+import study.querydsl.repository.support.JoinPlan.Strategy;
+
+@SpringBootTest
+@Transactional
+class JoinPlannerTest {
+
+  @Autowired
+  EntityManager em;
+
+  @Autowired
+  JPAQueryFactory queryFactory;
+
+  @BeforeEach
+  public void before(){
+    Team teamA = new Team("teamA");
+    Team teamB = new Team("teamB");
+    em.persist(teamA);
+    em.persist(teamB);
+
+    em.persist(new Member("member1", 10, teamA));
+    em.persist(new Member("member2", 20, teamA));
+    em.persist(new Member("member3", 30, teamB));
+    em.persist(new Member("member4", 40)); //팀 없음
+    em.flush();
+    em.clear();
+  }
+
+  @Test
+  public void pruneUnusedJoin(){
+    JoinPlan<?> plan = planner(new QMemberDto(member.username, member.age))
+        .leftJoin(member.team, team)
+        .where(member.age.goe(20))
+        .build();
+
+    assertThat(plan.strategy()).isEqualTo(Strategy.DTO_PROJECTION);
+    assertThat(plan.decision(team)).isEqualTo(Decision.PRUNED);
+    assertThat(plan.query().toString()).doesNotContain("join");
+    assertThat(plan.fetch()).extracting("username").containsExactlyInAnyOrder("member2", "member3", "member4");
+  }
+
+  @Test
+  public void teamIdFromForeignKey(){
+    JoinPlan<MemberTeamDto> plan = planner(
+        new QMemberTeamDto(member.id, member.username, member.age, team.id, member.username))
+        .leftJoin(member.team, team)
+        .build();
+
+    assertThat(plan.decision(team)).isEqualTo(Decision.FOREIGN_KEY);
+    assertThat(plan.query().toString()).doesNotContain("join").contains("member1.team.id");
+
+    List<MemberTeamDto> result = plan.fetch();
+    List<MemberTeamDto> joined = queryFactory
+        .select(new QMemberTeamDto(member.id, member.username, member.age, team.id, member.username))
+        .from(member)
+        .leftJoin(member.team, team)
+        .fetch();
+    assertThat(result).containsExactlyInAnyOrderElementsOf(joined);
+  }
+
+  @Test
+  public void innerJoinWhenConditionRejectsNull(){
+    JoinPlan<MemberTeamDto> withTeamName = planner(
+        new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name))
+        .leftJoin(member.team, team)
+        .where(team.name.eq("teamA"), member.age.goe(10))
+        .build();
+    assertThat(withTeamName.decision(team)).isEqualTo(Decision.INNER_JOIN);
+    assertThat(withTeamName.fetch()).extracting("username").containsExactlyInAnyOrder("member1", "member2");
+
+    JoinPlan<MemberTeamDto> withoutTeamName = planner(
+        new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name))
+        .leftJoin(member.team, team)
+        .where(member.age.goe(10).or(team.name.eq("teamA"))) //or 는 null 을 거르지 않음
+        .build();
+    assertThat(withoutTeamName.decision(team)).isEqualTo(Decision.LEFT_JOIN);
+    assertThat(withoutTeamName.fetch()).hasSize(4);
+  }
+
+  @Test
+  public void fetchJoinToOne(){
+    JoinPlan<Member> plan = planner(member)
+        .leftJoin(member.team, team)
+        .fetch(member.team)
+        .build();
+
+    assertThat(plan.strategy()).isEqualTo(Strategy.FETCH_JOIN);
+    assertThat(plan.decision(team)).isEqualTo(Decision.FETCH_JOIN);
+    assertThat(plan.fetch())
+        .filteredOn(found -> found.getTeam() != null)
+        .allSatisfy(found -> assertThat(em.getEntityManagerFactory().getPersistenceUnitUtil()
+            .isLoaded(found.getTeam())).isTrue());
+  }
+
+  @Test
+  public void batchFetchCollectionWhenPaged(){
+    JoinPlan<Team> paged = new JoinPlanner<>(queryFactory, em.getMetamodel(), team)
+        .from(team)
+        .orderBy(team.name.asc())
+        .fetch(team.members)
+        .paged()
+        .build();
+    paged.query().offset(0).limit(1);
+
+    assertThat(paged.strategy()).isEqualTo(Strategy.BATCH_FETCH);
+    assertThat(paged.decision(team.members)).isEqualTo(Decision.BATCH_FETCH);
+    assertThat(paged.query().toString()).doesNotContain("join");
+    List<Team> teams = paged.fetch();
+    assertThat(teams).extracting("name").containsExactly("teamA");
+    assertThat(em.getEntityManagerFactory().getPersistenceUnitUtil().isLoaded(teams.get(0), "members")).isTrue();
+
+    JoinPlan<Team> unpaged = new JoinPlanner<>(queryFactory, em.getMetamodel(), team)
+        .from(team)
+        .fetch(team.members)
+        .build();
+    assertThat(unpaged.decision(team.members)).isEqualTo(Decision.FETCH_JOIN);
+  }
+
+  @Test
+  public void fetchRequiresEntityProjection(){
+    assertThatThrownBy(() -> planner(member.username).fetch(member.team).build())
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private <T> JoinPlanner<T> planner(Expression<T> projection) {
+    return new JoinPlanner<>(queryFactory, em.getMetamodel(), projection).from(member);
+  }
+}
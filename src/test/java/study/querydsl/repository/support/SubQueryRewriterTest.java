@@ -0,0 +1,191 @@
+package study.querydsl.repository.support;
+
+import static com.querydsl.jpa.JPAExpressions.select;
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+import study.querydsl.entity.Team;
+import study.querydsl.monitoring.QueryCountListener;
+
+@SpringBootTest(properties = {
+    "querydsl.subquery-cache.ttl=1m", //캐시를 비우는 시점을 보기 위해 TTL 로는 만료되지 않게
+    "spring.datasource.url=jdbc:h2:mem:subquery;DB_CLOSE_DELAY=-1" //컨텍스트가 따로 뜨므로 공용 DB 스키마를 다시 만들지 않도록
+})
+@Transactional
+class SubQueryRewriterTest {
+
+  static final QMember memberSub = new QMember("memberSub");
+
+  @Autowired
+  EntityManager em;
+
+  @Autowired
+  JPAQueryFactory queryFactory;
+
+  @Autowired
+  SubQueryRewriter subQueryRewriter;
+
+  @Autowired
+  QueryCountListener queryCountListener;
+
+  @Autowired
+  PlatformTransactionManager transactionManager;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @BeforeEach
+  public void before(){
+    Team teamA = new Team("teamA");
+    Team teamB = new Team("teamB");
+    em.persist(teamA);
+    em.persist(teamB);
+
+    em.persist(new Member("member1", 10, teamA));
+    em.persist(new Member("member2", 20, teamA));
+    em.persist(new Member("member3", 30, teamB));
+    em.persist(new Member("member4", 40, teamB));
+  }
+
+  @Test
+  public void maxSubQuery(){
+    JPAQuery<Member> query = subQueryRewriter.rewrite(queryFactory
+        .selectFrom(member)
+        .where(member.age.eq(select(memberSub.age.max()).from(memberSub))));
+
+    assertThat(query.toString()).doesNotContain("memberSub").contains("cast(?1 as Integer)");
+    assertThat(query.fetch()).extracting("age").containsExactly(40);
+  }
+
+  @Test
+  public void avgSubQueryKeepsDoubleComparison(){
+    em.persist(new Member("member5", 25)); //평균 25 -> 25 이상
+    JPAQuery<Member> query = subQueryRewriter.rewrite(queryFactory
+        .selectFrom(member)
+        .where(member.age.goe(select(memberSub.age.avg()).from(memberSub))));
+
+    assertThat(query.toString()).contains("cast(?1 as Double)");
+    assertThat(query.fetch()).extracting("age").containsExactlyInAnyOrder(25, 30, 40);
+  }
+
+  @Test
+  public void inSubQuery(){
+    JPAQuery<Member> query = subQueryRewriter.rewrite(queryFactory
+        .selectFrom(member)
+        .where(member.age.in(select(memberSub.age).from(memberSub).where(memberSub.age.gt(10)))));
+
+    assertThat(query.toString()).doesNotContain("memberSub");
+    assertThat(query.fetch()).extracting("age").containsExactlyInAnyOrder(20, 30, 40);
+
+    JPAQuery<Member> empty = subQueryRewriter.rewrite(queryFactory
+        .selectFrom(member)
+        .where(member.age.in(select(memberSub.age).from(memberSub).where(memberSub.age.gt(100)))));
+    assertThat(empty.fetch()).isEmpty();
+  }
+
+  @Test
+  public void selectSubQuery(){
+    JPAQuery<Tuple> query = subQueryRewriter.rewrite(queryFactory
+        .select(member.username, select(memberSub.age.avg()).from(memberSub))
+        .from(member));
+
+    assertThat(query.toString()).doesNotContain("memberSub");
+    List<Tuple> result = query.fetch();
+    assertThat(result).hasSize(4);
+    assertThat(result).extracting(tuple -> tuple.get(1, Double.class)).containsOnly(25.0);
+  }
+
+  @Test
+  public void correlatedSubQueryIsKept(){
+    //팀별 최고령
+    JPAQuery<Member> query = subQueryRewriter.rewrite(queryFactory
+        .selectFrom(member)
+        .where(member.age.eq(
+            select(memberSub.age.max()).from(memberSub).where(memberSub.team.eq(member.team)))));
+
+    assertThat(query.toString()).contains("memberSub");
+    assertThat(query.fetch()).extracting("age").containsExactlyInAnyOrder(20, 40);
+  }
+
+  @Test
+  public void reuseValueWithinTtl(){
+    SubQueryRewriter cached = new SubQueryRewriter(em, Duration.ofMinutes(1), 100, 100);
+    em.flush();
+
+    long before = queryCountListener.currentCount();
+    for (int i = 0; i < 3; i++) {
+      assertThat(cached.rewrite(queryFactory
+          .selectFrom(member)
+          .where(member.age.eq(select(memberSub.age.max()).from(memberSub))))
+          .fetch()).extracting("age").containsExactly(40);
+    }
+    assertThat(queryCountListener.currentCount() - before).isEqualTo(4); //서브쿼리 1번 + 본 쿼리 3번
+  }
+
+  @Test
+  public void skipCacheWithPendingChanges(){
+    //이 트랜잭션에서 넣은 member 는 아직 커밋되지 않았으므로 캐시에서 꺼내지도, 넣지도 않는다
+    assertThat(maxAgeMembers()).extracting("age").containsExactly(40);
+    em.persist(new Member("member5", 50));
+    assertThat(maxAgeMembers()).extracting("age").containsExactly(50);
+    em.flush();
+    em.persist(new Member("member6", 60));
+    assertThat(maxAgeMembers()).extracting("age").containsExactly(60);
+  }
+
+  @Test
+  public void clearAfterMemberCommit() throws Exception {
+    //테스트 트랜잭션의 데이터가 보이지 않도록 다른 스레드에서 커밋하면서 확인한다
+    CompletableFuture.runAsync(() -> {
+      TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+      Long teamId = transaction.execute(status -> {
+        Team teamC = new Team("teamC");
+        em.persist(teamC);
+        em.persist(new Member("member5", 50, teamC));
+        return teamC.getId();
+      });
+      try {
+        assertThat(maxAgeMembers()).extracting("age").containsExactly(50);
+
+        //JPA 를 거치지 않은 변경은 TTL 동안 이전 값으로 조회된다 (캐시된 값을 쓰고 있는지 확인)
+        jdbcTemplate.update("insert into member (member_id, username, age, team_id) values (-1, 'jdbcMember', 70, ?)", teamId);
+        assertThat(maxAgeMembers()).extracting("age").containsExactly(50);
+
+        //JPA 로 바꾸고 커밋하면 비워진다
+        transaction.executeWithoutResult(status ->
+            em.persist(new Member("member6", 60, em.find(Team.class, teamId))));
+        assertThat(maxAgeMembers()).extracting("age").containsExactly(70);
+      } finally {
+        transaction.executeWithoutResult(status -> {
+          em.createQuery("delete from Member m where m.team.id = :teamId").setParameter("teamId", teamId).executeUpdate();
+          em.createQuery("delete from Team t where t.id = :teamId").setParameter("teamId", teamId).executeUpdate();
+        });
+      }
+    }).get(10, TimeUnit.SECONDS);
+  }
+
+  private List<Member> maxAgeMembers() {
+    return subQueryRewriter.rewrite(queryFactory
+        .selectFrom(member)
+        .where(member.age.eq(select(memberSub.age.max()).from(memberSub))))
+        .fetch();
+  }
+}